@@ -1,10 +1,15 @@
 package io.github.rajveer.dragonfly;
 
+import io.github.rajveer.dragonfly.gui.SolarSystemController;
+import io.github.rajveer.dragonfly.utils.TrajectoryFile;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.nio.file.Path;
+import java.util.List;
+
 public class SolarSystem3D extends Application {
 
     @Override
@@ -14,12 +19,47 @@ public class SolarSystem3D extends Application {
         );
 
         Scene scene = new Scene(fxmlLoader.load(), 1000, 700);
+        SolarSystemController controller = fxmlLoader.getController();
+        stage.setOnHidden(event -> controller.shutdown());
+
+        // With a trajectory file argument the stored run is replayed instead of integrated
+        List<String> files = getParameters().getUnnamed();
+        if (files.isEmpty()) {
+            controller.propagate();
+        } else {
+            controller.replay(TrajectoryFile.open(Path.of(files.get(0))));
+        }
+
+        // --probe=rx,ry,rz,vx,vy,vz draws the path of a probe launched from that state
+        String probe = getParameters().getNamed().get("probe");
+        if (probe != null) {
+            controller.showProbe(parseState(probe));
+        }
+
+        // --belt=N adds an asteroid belt of N test particles
+        String belt = getParameters().getNamed().get("belt");
+        if (belt != null) {
+            controller.showBelt(Integer.parseInt(belt));
+        }
+
         stage.setTitle("Solar System 3D Viewer");
         stage.setScene(scene);
         stage.show();
     }
 
+    private static double[] parseState(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Expected rx,ry,rz,vx,vy,vz, got: " + text);
+        }
+        double[] state = new double[6];
+        for (int i = 0; i < 6; i++) {
+            state[i] = Double.parseDouble(parts[i].trim());
+        }
+        return state;
+    }
+
     public static void main(String[] args) {
-        launch();
+        launch(args);
     }
 }
@@ -0,0 +1,78 @@
+package io.github.rajveer.dragonfly.gui;
+
+import io.github.rajveer.dragonfly.systems.GravitySystem;
+
+import java.util.SplittableRandom;
+
+/**
+ * Test particles on circular orbits about the Sun between Mars and Jupiter, for
+ * drawing with a {@link SmallBodyRenderer}. The orbits are not integrated: every
+ * particle moves at its own Keplerian rate, which is what a belt looks like over a
+ * few years.
+ */
+class AsteroidBelt {
+
+    private static final double AU_KM = 1.495978707e8;
+    private static final double INNER_AU = 2.2, OUTER_AU = 3.3;
+    private static final double MAX_INCLINATION = Math.toRadians(15);
+
+    private final int count;
+    private final double[] radius, meanMotion, phase;
+    private final double[] cosNode, sinNode, cosInclination, sinInclination;
+
+    /**
+     * @param count number of particles
+     * @param seed  seed of the random orbits
+     */
+    AsteroidBelt(int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Particle count must not be negative: " + count);
+        }
+        this.count = count;
+        radius = new double[count];
+        meanMotion = new double[count];
+        phase = new double[count];
+        cosNode = new double[count];
+        sinNode = new double[count];
+        cosInclination = new double[count];
+        sinInclination = new double[count];
+
+        double mu = GravitySystem.G * SolarSystemData.MASS.get(0);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            radius[i] = random.nextDouble(INNER_AU, OUTER_AU) * AU_KM;
+            meanMotion[i] = Math.sqrt(mu / (radius[i] * radius[i] * radius[i]));
+            phase[i] = random.nextDouble(2 * Math.PI);
+            double node = random.nextDouble(2 * Math.PI);
+            double inclination = random.nextDouble(MAX_INCLINATION);
+            cosNode[i] = Math.cos(node);
+            sinNode[i] = Math.sin(node);
+            cosInclination[i] = Math.cos(inclination);
+            sinInclination[i] = Math.sin(inclination);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Computes the particle positions at a time.
+     *
+     * @param t   seconds since the start of the run
+     * @param sun x, y, z of the Sun in km, read from index 0
+     * @param out receives x, y, z in km per particle (length 3 * count)
+     */
+    void positionsInto(double t, double[] sun, double[] out) {
+        for (int i = 0; i < count; i++) {
+            double u = phase[i] + meanMotion[i] * t;
+            double x = radius[i] * Math.cos(u);
+            double y = radius[i] * Math.sin(u);
+            // Tilt by the inclination, then turn about z by the node
+            double yTilted = y * cosInclination[i];
+            out[3 * i] = sun[0] + x * cosNode[i] - yTilted * sinNode[i];
+            out[3 * i + 1] = sun[1] + x * sinNode[i] + yTilted * cosNode[i];
+            out[3 * i + 2] = sun[2] + y * sinInclination[i];
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.rajveer.dragonfly.gui;
+
+import io.github.rajveer.dragonfly.utils.TrajectoryView;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ * Trail of the recent path of one body, drawn as a thin ribbon in a single mesh.
+ * <p>
+ * The positions live in a ring buffer of fixed capacity whose slots map one to one
+ * onto pairs of mesh points, so adding a position rewrites only that slot's points
+ * and the faces of its two neighbouring segments: the cost per frame does not grow
+ * with the length of the trail. Once the buffer is full the oldest position is
+ * overwritten and the seam between the newest and the oldest is hidden behind
+ * degenerate faces.
+ * <p>
+ * Positions are decimated by curvature as they arrive. While the path keeps
+ * turning by less than the maximum turn angle, the newest position replaces the
+ * previous one instead of adding a slot, so straight stretches take few slots and
+ * tight turns many. Positions closer than the ribbon width to the previous one are
+ * skipped.
+ * <p>
+ * The ribbon lies in the plane perpendicular to the z-axis, i.e. the ecliptic for
+ * the solar system. Must be used on the JavaFX application thread.
+ */
+public class OrbitTrail {
+
+    private final int capacity;
+    private final float width;
+    private final TriangleMesh mesh = new TriangleMesh();
+    private final MeshView view = new MeshView(mesh);
+
+    private final float[] centers;
+    private final float[] ribbon = new float[6];
+    private final int[] segment = new int[12];
+    private double maxTurn = Math.toRadians(1.5);
+    private int head = -1;
+    private int size;
+
+    /**
+     * @param capacity maximum number of retained positions, at least 2
+     * @param width    ribbon width in scene units
+     * @param color    colour of the trail
+     */
+    public OrbitTrail(int capacity, double width, Color color) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Trail needs at least 2 positions: " + capacity);
+        }
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("Width must be positive: " + width);
+        }
+        this.capacity = capacity;
+        this.width = (float) width;
+        this.centers = new float[3 * capacity];
+
+        // Two mesh points per slot and two triangles per segment, all degenerate for now
+        mesh.getTexCoords().setAll(0, 0);
+        mesh.getPoints().resize(6 * capacity);
+        mesh.getFaces().resize(12 * capacity);
+        view.setMaterial(new PhongMaterial(color));
+        view.setCullFace(CullFace.NONE);
+        view.setMouseTransparent(true);
+    }
+
+    public MeshView getNode() {
+        return view;
+    }
+
+    /**
+     * Returns the number of positions currently in the trail.
+     *
+     * @return the retained position count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets how much the path may turn before a new position is kept.
+     *
+     * @param radians maximum turn angle between kept segments, positive
+     */
+    public void setMaxTurnAngle(double radians) {
+        if (!(radians > 0)) {
+            throw new IllegalArgumentException("Turn angle must be positive: " + radians);
+        }
+        this.maxTurn = radians;
+    }
+
+    /**
+     * Extends the trail to a new position.
+     *
+     * @param x x in scene units
+     * @param y y in scene units
+     * @param z z in scene units
+     */
+    public void add(double x, double y, double z) {
+        float px = (float) x, py = (float) y, pz = (float) z;
+        if (size > 0) {
+            int b = 3 * head;
+            float vx = px - centers[b], vy = py - centers[b + 1], vz = pz - centers[b + 2];
+            double step = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            if (step < width) return;
+
+            if (size > 1) {
+                int a = 3 * previous(head);
+                float ux = centers[b] - centers[a], uy = centers[b + 1] - centers[a + 1], uz = centers[b + 2] - centers[a + 2];
+                double chord = Math.sqrt(ux * ux + uy * uy + uz * uz);
+                double cos = (ux * vx + uy * vy + uz * vz) / (chord * step);
+                if (cos > Math.cos(maxTurn)) {
+                    // Still on course, move the newest position instead of keeping a new one
+                    put(head, px, py, pz, px - centers[a], py - centers[a + 1]);
+                    return;
+                }
+            }
+        }
+
+        int slot = (head + 1) % capacity;
+        if (size < capacity) size++;
+        if (size == 1) {
+            put(slot, px, py, pz, 1, 0);
+        } else {
+            int h = 3 * head;
+            float dx = px - centers[h], dy = py - centers[h + 1];
+            put(slot, px, py, pz, dx, dy);
+            if (size == 2) {
+                // The first position takes its direction from the segment it starts
+                put(head, centers[h], centers[h + 1], centers[h + 2], dx, dy);
+            }
+            connect(head, slot);
+        }
+        // Hide the segment to the oldest position, or the still empty slot
+        hide(slot);
+        head = slot;
+    }
+
+    /**
+     * Replaces the trail by the positions of one body over a stored trajectory, e.g.
+     * a probe path. Only the last {@code capacity} kept positions remain.
+     *
+     * @param path  the trajectory
+     * @param body  the body within it
+     * @param scale factor from trajectory units to scene units
+     */
+    public void setPath(TrajectoryView path, int body, double scale) {
+        clear();
+        for (int step = 0; step < path.size(); step++) {
+            add(path.get(step, body, 0) * scale, path.get(step, body, 1) * scale, path.get(step, body, 2) * scale);
+        }
+    }
+
+    /** Removes all positions. */
+    public void clear() {
+        head = -1;
+        size = 0;
+        mesh.getFaces().setAll(new int[12 * capacity]);
+    }
+
+    private int previous(int slot) {
+        return (slot + capacity - 1) % capacity;
+    }
+
+    /** Stores a position and writes its two ribbon points, offset across the direction (dx, dy). */
+    private void put(int slot, float x, float y, float z, float dx, float dy) {
+        int c = 3 * slot;
+        centers[c] = x;
+        centers[c + 1] = y;
+        centers[c + 2] = z;
+
+        // Across the track within the plane: (dx, dy, 0) × z
+        float nx = dy, ny = -dx;
+        float n = (float) Math.sqrt(nx * nx + ny * ny);
+        if (n == 0) {
+            nx = 1;
+            ny = 0;
+            n = 1;
+        }
+        float half = width / (2 * n);
+        ribbon[0] = x + nx * half;
+        ribbon[1] = y + ny * half;
+        ribbon[2] = z;
+        ribbon[3] = x - nx * half;
+        ribbon[4] = y - ny * half;
+        ribbon[5] = z;
+        mesh.getPoints().set(6 * slot, ribbon, 0, 6);
+    }
+
+    /** Draws the segment between two consecutive slots. */
+    private void connect(int from, int to) {
+        int a = 2 * from, b = 2 * to;
+        // Point and texture coordinate index per corner
+        segment[0] = a;
+        segment[2] = b;
+        segment[4] = a + 1;
+        segment[6] = a + 1;
+        segment[8] = b;
+        segment[10] = b + 1;
+        mesh.getFaces().set(12 * from, segment, 0, 12);
+    }
+
+    /** Collapses the segment starting at a slot onto a single point. */
+    private void hide(int from) {
+        for (int k = 0; k < 12; k += 2) {
+            segment[k] = 2 * from;
+        }
+        mesh.getFaces().set(12 * from, segment, 0, 12);
+    }
+}
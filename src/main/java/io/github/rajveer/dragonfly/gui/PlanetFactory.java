@@ -1,6 +1,5 @@
 package io.github.rajveer.dragonfly.gui;
 
-import io.github.rajveer.dragonfly.utils.ImageUtils;
 import javafx.animation.Animation;
 import javafx.animation.Interpolator;
 import javafx.animation.RotateTransition;
@@ -13,6 +12,19 @@ import javafx.util.Duration;
 
 public class PlanetFactory {
 
+    private static final String TEXTURE_DIR = "/io/github/rajveer/dragonfly/";
+
+    private static final String[] TEXTURES = {
+            "2k_sun.jpg", "2k_mercury.jpg", "2k_venus_atmosphere.jpg", "2k_earth.jpg", "2k_moon.jpg",
+            "2k_mars.jpg", "2k_jupiter.jpg", "2k_saturn.jpg", "2k_titan.jpg", "2k_uranus.jpg", "2k_neptune.jpg"
+    };
+
+    // Spheres smaller than this, in scene units, never fill enough pixels for a 2k texture
+    private static final double DETAIL_RADIUS = 20;
+    private static final int SMALL_TEXTURE_SIZE = 512;
+
+    private static final TextureLoader LOADER = new TextureLoader(TextureLoader.defaultCacheDirectory());
+
     public static void createPlanets(Group root, double[] radii, double[] initialState, String[] names) {
 
         for (int i = 0; i < names.length; i++) {
@@ -25,59 +37,28 @@ public class PlanetFactory {
             planet.setTranslateY(yKm * SolarSystemData.DISTANCE_SCALE);
             planet.setTranslateZ(zKm * SolarSystemData.DISTANCE_SCALE);
 
-            PhongMaterial material = new PhongMaterial();
-            switch (i) {
-                case 0:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_sun.jpg"));
-                    break;
-                case 1:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_mercury.jpg"));
-                    break;
-                case 2:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_venus_atmosphere.jpg"));
-                    break;
-                case 3:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_earth.jpg"));
-                    break;
-                case 4:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_moon.jpg"));
-                    break;
-                case 5:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_mars.jpg"));
-                    break;
-                case 6:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_jupiter.jpg"));
-                    break;
-                case 7:
-                    // Rotate Saturn texture right for proper alignment
-                    material.setDiffuseMap(ImageUtils.rotateRight("/io/github/rajveer/dragonfly/2k_saturn.jpg"));
-                    break;
-                case 8:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_titan.jpg"));
-                    break;
-                case 9:
-                    // Rotate Uranus texture right
-                    material.setDiffuseMap(ImageUtils.rotateRight("/io/github/rajveer/dragonfly/2k_uranus.jpg"));
-                    break;
-                case 10:
-                    material.setDiffuseMap(ImageUtils.rotateLeft("/io/github/rajveer/dragonfly/2k_neptune.jpg"));
-                    break;
-                default:
-                    material.setDiffuseColor(Color.LIGHTGRAY); // fallback
-            }
+            // Plain colour until the texture arrives
+            PhongMaterial material = new PhongMaterial(Color.LIGHTGRAY);
+            // Saturn and Uranus textures are rotated right for proper alignment
+            TextureLoader.Rotation rotation = i == 7 || i == 9 ? TextureLoader.Rotation.RIGHT : TextureLoader.Rotation.LEFT;
+            LOADER.applyDiffuseMap(material, TEXTURE_DIR + TEXTURES[i], rotation, textureSize(planet));
             planet.setMaterial(material);
 
-            RotateTransition rotation = new RotateTransition(Duration.seconds(getRotationPeriod(i)), planet);
-            rotation.setAxis(Rotate.Z_AXIS);
-            rotation.setByAngle(360);
-            rotation.setCycleCount(Animation.INDEFINITE);
-            rotation.setInterpolator(Interpolator.LINEAR);
-            rotation.play();
+            RotateTransition spin = new RotateTransition(Duration.seconds(getRotationPeriod(i)), planet);
+            spin.setAxis(Rotate.Z_AXIS);
+            spin.setByAngle(360);
+            spin.setCycleCount(Animation.INDEFINITE);
+            spin.setInterpolator(Interpolator.LINEAR);
+            spin.play();
 
             root.getChildren().add(planet);
         }
     }
 
+    private static int textureSize(Sphere planet) {
+        return planet.getRadius() < DETAIL_RADIUS ? SMALL_TEXTURE_SIZE : TextureLoader.FULL_SIZE;
+    }
+
     private static double getRotationPeriod(int i) {
         switch (i) {
             case 0:  return 25;  // Sun
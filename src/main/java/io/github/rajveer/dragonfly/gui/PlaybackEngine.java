@@ -0,0 +1,162 @@
+package io.github.rajveer.dragonfly.gui;
+
+import io.github.rajveer.dragonfly.utils.TrajectoryView;
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+
+/**
+ * Plays a stored trajectory back at a chosen time warp, one frame per pulse of
+ * the JavaFX animation timer.
+ * <p>
+ * The playback position is a fractional sample index held by a property, usually
+ * the value of the day slider, so scrubbing and playing move the same position.
+ * Every frame advances it by the elapsed wall-clock time times the warp, converted
+ * to simulation time through the sample times. Body positions between samples are
+ * drawn by cubic Hermite interpolation of the stored positions and velocities, so
+ * motion is smooth at any speed while the trajectory stays at its coarse step.
+ * At the end of the data playback holds, and continues if more samples arrive.
+ * <p>
+ * All methods must be called on the JavaFX application thread.
+ */
+public class PlaybackEngine extends AnimationTimer {
+
+    private final DoubleProperty position;
+    private final BooleanProperty playing = new SimpleBooleanProperty(false);
+    private TrajectoryView trajectory;
+    private double warp = SolarSystemData.SECONDS_PER_DAY;
+    private long lastFrame = -1;
+
+    /**
+     * @param position fractional sample index the engine advances while playing
+     */
+    public PlaybackEngine(DoubleProperty position) {
+        this.position = position;
+    }
+
+    public void setTrajectory(TrajectoryView trajectory) {
+        this.trajectory = trajectory;
+    }
+
+    /**
+     * Sets the playback speed.
+     *
+     * @param warp simulated seconds per second of wall-clock time, positive
+     */
+    public void setWarp(double warp) {
+        if (!(warp > 0)) {
+            throw new IllegalArgumentException("Time warp must be positive: " + warp);
+        }
+        this.warp = warp;
+    }
+
+    public double getWarp() {
+        return warp;
+    }
+
+    public ReadOnlyBooleanProperty playingProperty() {
+        return playing;
+    }
+
+    public boolean isPlaying() {
+        return playing.get();
+    }
+
+    public void play() {
+        lastFrame = -1;
+        playing.set(true);
+        start();
+    }
+
+    public void pause() {
+        stop();
+        playing.set(false);
+    }
+
+    @Override
+    public void handle(long now) {
+        TrajectoryView view = trajectory;
+        if (view == null || view.size() < 2) {
+            lastFrame = now;
+            return;
+        }
+        double elapsed = lastFrame < 0 ? 0 : (now - lastFrame) * 1e-9;
+        lastFrame = now;
+
+        double t = timeAt(view, position.get()) + elapsed * warp;
+        position.set(indexAt(view, t));
+    }
+
+    /**
+     * Interpolates the body positions at a fractional sample index. With fewer than
+     * six components per body, i.e. without velocities, positions are interpolated
+     * linearly instead.
+     *
+     * @param index fractional sample index
+     * @param out   receives x, y, z per body
+     * @return false if no trajectory is set or the index is beyond the stored samples
+     */
+    public boolean positionsInto(double index, double[] out) {
+        TrajectoryView view = trajectory;
+        if (view == null || view.size() == 0 || index < 0 || index > view.size() - 1) {
+            return false;
+        }
+        int k = Math.min((int) index, view.size() - 1);
+        double s = index - k;
+        int bodies = view.getNumBodies();
+        if (s == 0 || k == view.size() - 1) {
+            for (int i = 0; i < bodies; i++) {
+                for (int c = 0; c < 3; c++) {
+                    out[3 * i + c] = view.get(k, i, c);
+                }
+            }
+            return true;
+        }
+
+        boolean hermite = view.getComponentsPerBody() >= 6;
+        double h = view.getTime(k + 1) - view.getTime(k);
+        double s2 = s * s, s3 = s2 * s;
+        double h00 = 2 * s3 - 3 * s2 + 1;
+        double h10 = (s3 - 2 * s2 + s) * h;
+        double h01 = -2 * s3 + 3 * s2;
+        double h11 = (s3 - s2) * h;
+        for (int i = 0; i < bodies; i++) {
+            for (int c = 0; c < 3; c++) {
+                double p0 = view.get(k, i, c);
+                double p1 = view.get(k + 1, i, c);
+                out[3 * i + c] = hermite
+                        ? h00 * p0 + h10 * view.get(k, i, 3 + c) + h01 * p1 + h11 * view.get(k + 1, i, 3 + c)
+                        : p0 + s * (p1 - p0);
+            }
+        }
+        return true;
+    }
+
+    /** Simulation time at a fractional sample index, linear between samples. */
+    private static double timeAt(TrajectoryView view, double index) {
+        int last = view.size() - 1;
+        int k = (int) Math.max(0, Math.min(index, last - 1));
+        double s = Math.max(0, Math.min(index - k, 1));
+        double t0 = view.getTime(k);
+        return t0 + s * (view.getTime(k + 1) - t0);
+    }
+
+    /** Fractional sample index at a simulation time, clamped to the stored samples. */
+    private static double indexAt(TrajectoryView view, double t) {
+        int last = view.size() - 1;
+        if (t <= view.getTime(0)) return 0;
+        if (t >= view.getTime(last)) return last;
+
+        // Last sample at or before t
+        int lo = 0, hi = last;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (view.getTime(mid) <= t) lo = mid;
+            else hi = mid;
+        }
+        double t0 = view.getTime(lo);
+        return lo + (t - t0) / (view.getTime(lo + 1) - t0);
+    }
+}
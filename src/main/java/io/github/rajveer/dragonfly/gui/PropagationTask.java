@@ -0,0 +1,65 @@
+package io.github.rajveer.dragonfly.gui;
+
+import io.github.rajveer.dragonfly.ode.ODESolver;
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.utils.Trajectory;
+import javafx.concurrent.Task;
+
+/**
+ * Integrates a system off the JavaFX application thread, appending every state to a
+ * {@link Trajectory} as soon as it is computed.
+ * <p>
+ * The trajectory is readable from the application thread while the task runs. The
+ * task's work done is the number of steps completed so far; its updates are
+ * coalesced onto the application thread, so listeners can extend the view as data
+ * arrives without being flooded. Cancelling stops the integration after the
+ * current step.
+ */
+public class PropagationTask extends Task<Trajectory> {
+
+    private final ODESystem system;
+    private final ODESolver solver;
+    private final double[] initialState;
+    private final double t0;
+    private final double dt;
+    private final int steps;
+    private final Trajectory trajectory;
+
+    /**
+     * @param system       the system to integrate
+     * @param solver       solver used by the background thread only
+     * @param initialState state at t0; copied
+     * @param t0           start time
+     * @param dt           time step
+     * @param steps        number of states to append, starting with the initial one
+     * @param trajectory   receives the states
+     */
+    public PropagationTask(ODESystem system, ODESolver solver, double[] initialState,
+                           double t0, double dt, int steps, Trajectory trajectory) {
+        this.system = system;
+        this.solver = solver;
+        this.initialState = initialState.clone();
+        this.t0 = t0;
+        this.dt = dt;
+        this.steps = steps;
+        this.trajectory = trajectory;
+    }
+
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    @Override
+    protected Trajectory call() {
+        double[] y = initialState.clone();
+        for (int step = 0; step < steps && !isCancelled(); step++) {
+            double t = t0 + step * dt;
+            trajectory.append(t, y);
+            updateProgress(step + 1, steps);
+            if (step + 1 < steps) {
+                solver.stepInto(system, t, y, dt, y);
+            }
+        }
+        return trajectory;
+    }
+}
@@ -0,0 +1,302 @@
+package io.github.rajveer.dragonfly.gui;
+
+import javafx.geometry.Point3D;
+import javafx.scene.Camera;
+import javafx.scene.Group;
+import javafx.scene.paint.Material;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws many small bodies, such as asteroids or test particles, as a handful of
+ * merged meshes instead of one node per body.
+ * <p>
+ * Each level of detail has a single {@link TriangleMesh} holding a copy of its
+ * shape per body: a once-subdivided icosahedron close to the camera, an
+ * icosahedron at medium range and a tetrahedron beyond that. Every update sorts
+ * the bodies into the levels by their distance to the camera and rewrites the
+ * point arrays in bulk. A level's mesh holds slots for about as many bodies as
+ * are assigned to it, so distant bodies really cost only their coarse shape. The
+ * slot count follows the assigned count with hysteresis: it grows by a quarter
+ * more than needed and shrinks only once fewer than half the slots are used, so
+ * bodies drifting between levels rarely re-upload faces. Spare slots have their
+ * points collapsed onto one spot, so their triangles are degenerate and draw
+ * nothing. All bodies share one material.
+ * <p>
+ * Must be used on the JavaFX application thread.
+ */
+public class SmallBodyRenderer {
+
+    private final Group root = new Group();
+    private final int count;
+    private final Level[] levels;
+    private double nearDistance = 100;
+    private double farDistance = 1000;
+
+    /**
+     * @param count    number of bodies
+     * @param radius   radius of every body in scene units
+     * @param material material shared by all bodies
+     */
+    public SmallBodyRenderer(int count, double radius, Material material) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Body count must not be negative: " + count);
+        }
+        if (!(radius > 0)) {
+            throw new IllegalArgumentException("Radius must be positive: " + radius);
+        }
+        this.count = count;
+        float r = (float) radius;
+        this.levels = new Level[]{
+                new Level(subdivide(ICOSAHEDRON_POINTS, ICOSAHEDRON_FACES), r, material),
+                new Level(new Shape(ICOSAHEDRON_POINTS, ICOSAHEDRON_FACES), r, material),
+                new Level(new Shape(TETRAHEDRON_POINTS, TETRAHEDRON_FACES), r, material)
+        };
+        for (Level level : levels) {
+            root.getChildren().add(level.view);
+        }
+    }
+
+    /**
+     * Returns the node to add to the scene; all bodies are drawn in its coordinates.
+     *
+     * @return the group of merged meshes
+     */
+    public Group getNode() {
+        return root;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the distances at which bodies switch to coarser shapes.
+     *
+     * @param near bodies closer than this get the finest shape
+     * @param far  bodies farther than this get the coarsest shape
+     */
+    public void setLodDistances(double near, double far) {
+        if (!(near >= 0 && far >= near)) {
+            throw new IllegalArgumentException("Expected 0 <= near <= far: " + near + ", " + far);
+        }
+        this.nearDistance = near;
+        this.farDistance = far;
+    }
+
+    /**
+     * Moves the bodies, taking the camera position from a camera in the same sub
+     * scene.
+     *
+     * @see #update(double[], int, int, double, Point3D)
+     */
+    public void update(double[] positions, int offset, int stride, double scale, Camera camera) {
+        Point3D eye = root.sceneToLocal(camera.localToScene(Point3D.ZERO));
+        update(positions, offset, stride, scale, eye);
+    }
+
+    /**
+     * Moves the bodies and reassigns their level of detail.
+     *
+     * @param positions body positions, x, y, z of body i starting at {@code offset + i * stride},
+     *                  e.g. an N-body state with a stride of 6
+     * @param offset    index of the first body's x
+     * @param stride    distance between consecutive bodies
+     * @param scale     factor from position units to scene units
+     * @param eye       camera position in the coordinates of {@link #getNode()}
+     */
+    public void update(double[] positions, int offset, int stride, double scale, Point3D eye) {
+        if (count > 0 && offset + (long) (count - 1) * stride + 3 > positions.length) {
+            throw new IllegalArgumentException("Positions too short for " + count + " bodies");
+        }
+        double ex = eye.getX(), ey = eye.getY(), ez = eye.getZ();
+        double near2 = nearDistance * nearDistance;
+        double far2 = farDistance * farDistance;
+
+        for (Level level : levels) {
+            level.used = 0;
+        }
+        for (int i = 0, p = offset; i < count; i++, p += stride) {
+            float x = (float) (positions[p] * scale);
+            float y = (float) (positions[p + 1] * scale);
+            float z = (float) (positions[p + 2] * scale);
+            double dx = x - ex, dy = y - ey, dz = z - ez;
+            double d2 = dx * dx + dy * dy + dz * dz;
+            Level level = levels[d2 < near2 ? 0 : d2 < far2 ? 1 : 2];
+            level.add(x, y, z);
+        }
+        for (Level level : levels) {
+            level.publish();
+        }
+    }
+
+    /** One level of detail: a shape repeated for every body currently assigned to it. */
+    private static final class Level {
+
+        final float[] shapePoints;
+        final int[] shapeFaces;
+        final int pointsPerBody;
+        final TriangleMesh mesh = new TriangleMesh();
+        final MeshView view = new MeshView(mesh);
+
+        float[] points = new float[0];
+        int[] faces = new int[0];
+        int used;
+        int published;
+        int slots;
+
+        Level(Shape shape, float radius, Material material) {
+            shapePoints = new float[shape.points.length];
+            for (int i = 0; i < shapePoints.length; i++) {
+                shapePoints[i] = shape.points[i] * radius;
+            }
+            shapeFaces = shape.faces;
+            pointsPerBody = shapePoints.length / 3;
+            mesh.getTexCoords().setAll(0, 0);
+            view.setMaterial(material);
+            view.setVisible(false);
+        }
+
+        void add(float x, float y, float z) {
+            int base = used * shapePoints.length;
+            if (base + shapePoints.length > points.length) {
+                points = Arrays.copyOf(points, Math.max(2 * points.length, base + shapePoints.length));
+            }
+            for (int k = 0; k < shapePoints.length; k += 3) {
+                points[base + k] = shapePoints[k] + x;
+                points[base + k + 1] = shapePoints[k + 1] + y;
+                points[base + k + 2] = shapePoints[k + 2] + z;
+            }
+            used++;
+        }
+
+        /** Hands the points to the mesh, resizing the slots when the count left their band. */
+        void publish() {
+            if (used > slots || used < slots / 2) {
+                resize(used + used / 4);
+            } else {
+                collapse(used, published);
+                int changed = Math.max(used, published) * shapePoints.length;
+                if (changed > 0) {
+                    mesh.getPoints().set(0, points, 0, changed);
+                }
+            }
+            view.setVisible(used > 0);
+            published = used;
+        }
+
+        private void resize(int newSlots) {
+            int pointCount = newSlots * shapePoints.length;
+            if (pointCount > points.length) {
+                points = Arrays.copyOf(points, pointCount);
+            }
+            collapse(used, newSlots);
+
+            // Faces of the slots are the shape's faces offset by the slot's first point
+            int faceStride = 2 * shapeFaces.length;
+            if (newSlots * faceStride > faces.length) {
+                int known = faces.length / faceStride;
+                faces = Arrays.copyOf(faces, newSlots * faceStride);
+                for (int b = known, f = known * faceStride; b < newSlots; b++) {
+                    int first = b * pointsPerBody;
+                    for (int v : shapeFaces) {
+                        faces[f++] = first + v;
+                        faces[f++] = 0; // single texture coordinate
+                    }
+                }
+            }
+            mesh.getPoints().setAll(points, 0, pointCount);
+            mesh.getFaces().setAll(faces, 0, newSlots * faceStride);
+            slots = newSlots;
+        }
+
+        /** Collapses the slots in [from, to) onto a single point each. */
+        private void collapse(int from, int to) {
+            for (int b = from; b < to; b++) {
+                int base = b * shapePoints.length;
+                // Onto a point the body last in the slot had, so the bounds do not grow
+                float x = points[base], y = points[base + 1], z = points[base + 2];
+                for (int k = base + 3; k < base + shapePoints.length; k += 3) {
+                    points[k] = x;
+                    points[k + 1] = y;
+                    points[k + 2] = z;
+                }
+            }
+        }
+    }
+
+    /** Unit sphere approximation: x, y, z per point and three point indices per face. */
+    private record Shape(float[] points, int[] faces) {
+    }
+
+    private static final float[] TETRAHEDRON_POINTS;
+    private static final int[] TETRAHEDRON_FACES = {0, 1, 2, 0, 3, 1, 0, 2, 3, 1, 3, 2};
+    private static final float[] ICOSAHEDRON_POINTS;
+    private static final int[] ICOSAHEDRON_FACES = {
+            0, 11, 5, 0, 5, 1, 0, 1, 7, 0, 7, 10, 0, 10, 11,
+            1, 5, 9, 5, 11, 4, 11, 10, 2, 10, 7, 6, 7, 1, 8,
+            3, 9, 4, 3, 4, 2, 3, 2, 6, 3, 6, 8, 3, 8, 9,
+            4, 9, 5, 2, 4, 11, 6, 2, 10, 8, 6, 7, 9, 8, 1
+    };
+
+    static {
+        float s = (float) (1 / Math.sqrt(3));
+        TETRAHEDRON_POINTS = new float[]{s, s, s, s, -s, -s, -s, s, -s, -s, -s, s};
+
+        float t = (float) ((1 + Math.sqrt(5)) / 2);
+        float[] raw = {
+                -1, t, 0, 1, t, 0, -1, -t, 0, 1, -t, 0,
+                0, -1, t, 0, 1, t, 0, -1, -t, 0, 1, -t,
+                t, 0, -1, t, 0, 1, -t, 0, -1, -t, 0, 1
+        };
+        normalize(raw);
+        ICOSAHEDRON_POINTS = raw;
+    }
+
+    /** Splits every triangle into four, pushing the new points out onto the unit sphere. */
+    private static Shape subdivide(float[] points, int[] faces) {
+        // One new point per edge, and every edge is shared by two faces
+        float[] out = Arrays.copyOf(points, points.length + 3 * faces.length / 2);
+        int[] outFaces = new int[4 * faces.length];
+        Map<Long, Integer> midpoints = new HashMap<>();
+        int next = points.length / 3;
+
+        for (int f = 0, o = 0; f < faces.length; f += 3) {
+            int a = faces[f], b = faces[f + 1], c = faces[f + 2];
+            int[] mid = new int[3];
+            int[][] edges = {{a, b}, {b, c}, {c, a}};
+            for (int e = 0; e < 3; e++) {
+                int u = Math.min(edges[e][0], edges[e][1]);
+                int v = Math.max(edges[e][0], edges[e][1]);
+                Integer known = midpoints.get(((long) u << 32) | v);
+                if (known == null) {
+                    for (int k = 0; k < 3; k++) {
+                        out[3 * next + k] = (out[3 * u + k] + out[3 * v + k]) / 2;
+                    }
+                    known = next++;
+                    midpoints.put(((long) u << 32) | v, known);
+                }
+                mid[e] = known;
+            }
+            int[] split = {a, mid[0], mid[2], b, mid[1], mid[0], c, mid[2], mid[1], mid[0], mid[1], mid[2]};
+            System.arraycopy(split, 0, outFaces, o, split.length);
+            o += split.length;
+        }
+        out = Arrays.copyOf(out, 3 * next);
+        normalize(out);
+        return new Shape(out, outFaces);
+    }
+
+    private static void normalize(float[] points) {
+        for (int i = 0; i < points.length; i += 3) {
+            float n = (float) Math.sqrt(points[i] * points[i] + points[i + 1] * points[i + 1] + points[i + 2] * points[i + 2]);
+            points[i] /= n;
+            points[i + 1] /= n;
+            points[i + 2] /= n;
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package io.github.rajveer.dragonfly.gui;
 
-import io.github.rajveer.dragonfly.ode.ODESolver;
+import io.github.rajveer.dragonfly.missions.ExploratoryMission;
 import io.github.rajveer.dragonfly.ode.RK4Solver;
 import io.github.rajveer.dragonfly.systems.SolarSystem;
-import io.github.rajveer.dragonfly.utils.Vector;
+import io.github.rajveer.dragonfly.utils.Trajectory;
+import io.github.rajveer.dragonfly.utils.TrajectoryFile;
+import io.github.rajveer.dragonfly.utils.TrajectoryView;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.SubScene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Slider;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
 import javafx.scene.transform.Rotate;
+import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,25 +34,151 @@ public class SolarSystemController {
     @FXML
     private Slider daySlider;
 
+    @FXML
+    private Button playButton;
+
+    @FXML
+    private ChoiceBox<Integer> warpChoice;
+
     private Group planetGroup;
+    private SubScene subScene;
     private List<Node> planetNodes = new ArrayList<>();
     private Rotate rotateX, rotateY;
     private double anchorX, anchorY, anchorAngleX, anchorAngleY;
 
+    // Trajectory shown by the slider, either computed in the background or replayed from a file
+    private TrajectoryView trajectory;
+    private PropagationTask propagation;
+    private TrajectoryFile replayFile;
+
+    private PlaybackEngine playback;
+    private double[] positions;
+
+    // Recent paths of the bodies, restarted when the view jumps back in time
+    private final List<OrbitTrail> trails = new ArrayList<>();
+    private double trailDay = Double.NEGATIVE_INFINITY;
+    private OrbitTrail probeTrail;
+
+    // Optional asteroid belt, moved with the planets
+    private AsteroidBelt belt;
+    private SmallBodyRenderer beltRenderer;
+    private double[] beltPositions;
+
+    private static final int TRAIL_CAPACITY = 512;
+    private static final double TRAIL_WIDTH = 0.5;
+
+    // Largest jump in stored steps still drawn as part of a trail, and the frame time allowed while playing
+    private static final double TRAIL_MAX_GAP = 1.5;
+    private static final double TRAIL_MAX_FRAME_SECONDS = 0.1;
+
+    // Playback speeds in days per second
+    private static final Integer[] WARP_DAYS = {1, 7, 30, 90};
+
     @FXML
     public void initialize() {
 
         setBackground("/io/github/rajveer/dragonfly/2k_stars_milky_way.jpg");
         setup3DScene();
         setupMouseControl();
+        setupSlider();
+        setupPlayback();
+    }
 
-        // Create SolarSystem and RK4 solver
-        List<Vector> trajectory = getVectors(
-                SolarSystemData.MASS,
-                SolarSystemData.INITIAL_STATE
-        );
+    /**
+     * Integrates the solar system in the background. The view shows the initial
+     * positions right away; days become available as they are computed.
+     */
+    public void propagate() {
+        Trajectory computed = new Trajectory(SolarSystemData.MASS.size(), 6);
+        trajectory = computed;
+        playback.setTrajectory(computed);
+        startPropagation(computed);
+    }
 
-        setupSlider(trajectory);
+    /**
+     * Replays a stored run instead of integrating. The file is read in place, so
+     * runs larger than the heap can be scrubbed through; it is closed by
+     * {@link #shutdown()}.
+     *
+     * @param file the stored run
+     */
+    public void replay(TrajectoryFile file) {
+        replayFile = file;
+        trajectory = file;
+        playback.setTrajectory(file);
+        daySlider.setMax(Math.max(0, file.size() - 1));
+        showDay(0);
+    }
+
+    /**
+     * Integrates a probe in the background and draws its path once it is known.
+     *
+     * @param launchState initial probe state [rx, ry, rz, vx, vy, vz] in km and km/s,
+     *                    as optimized by {@link ExploratoryMission}
+     */
+    public void showProbe(double[] launchState) {
+        Task<Trajectory> task = new Task<>() {
+            @Override
+            protected Trajectory call() {
+                return new ExploratoryMission().probeTrajectory(launchState);
+            }
+        };
+        task.setOnSucceeded(event -> showProbePath(task.getValue()));
+        task.setOnFailed(event -> reportFailure("Probe propagation", task.getException()));
+
+        Thread thread = new Thread(task, "probe-propagation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Draws the full path of a probe, e.g. from
+     * {@link ExploratoryMission#probeTrajectory(double[])},
+     * replacing any path shown before.
+     *
+     * @param path trajectory whose first body is the probe, positions in km
+     */
+    public void showProbePath(TrajectoryView path) {
+        if (probeTrail != null) {
+            planetGroup.getChildren().remove(probeTrail.getNode());
+        }
+        probeTrail = new OrbitTrail(Math.max(2, path.size()), TRAIL_WIDTH, Color.ORANGE);
+        probeTrail.setPath(path, 0, SolarSystemData.DISTANCE_SCALE);
+        planetGroup.getChildren().add(probeTrail.getNode());
+    }
+
+    /**
+     * Adds an asteroid belt of test particles on circular orbits, drawn as merged
+     * meshes with distance-based detail, replacing any belt shown before.
+     *
+     * @param count number of particles
+     */
+    public void showBelt(int count) {
+        if (beltRenderer != null) {
+            planetGroup.getChildren().remove(beltRenderer.getNode());
+        }
+        belt = new AsteroidBelt(count, 1);
+        beltPositions = new double[3 * count];
+        beltRenderer = new SmallBodyRenderer(count, 0.4, new PhongMaterial(Color.rgb(150, 140, 130)));
+        beltRenderer.setLodDistances(800, 1200);
+        planetGroup.getChildren().add(beltRenderer.getNode());
+        showDay(daySlider.getValue());
+    }
+
+    /**
+     * Stops the background integration and closes a replayed file, e.g. when the
+     * window is closed.
+     */
+    public void shutdown() {
+        playback.pause();
+        if (propagation != null) {
+            propagation.cancel();
+        }
+        if (replayFile != null) {
+            trajectory = null;
+            playback.setTrajectory(null);
+            replayFile.close();
+        }
     }
 
     private void setup3DScene() {
@@ -60,12 +195,18 @@ public class SolarSystemController {
         // Store references to each planet sphere
         planetNodes.addAll(planetGroup.getChildren());
 
+        for (int i = 0; i < planetNodes.size(); i++) {
+            OrbitTrail trail = new OrbitTrail(TRAIL_CAPACITY, TRAIL_WIDTH, Color.gray(0.7, 0.6));
+            trails.add(trail);
+            planetGroup.getChildren().add(trail.getNode());
+        }
+
         // Camera + transforms
         rotateX = new Rotate(0, Rotate.X_AXIS);
         rotateY = new Rotate(0, Rotate.Y_AXIS);
         planetGroup.getTransforms().addAll(rotateX, rotateY);
 
-        SubScene subScene = SceneFactory.createSubScene(planetGroup);
+        subScene = SceneFactory.createSubScene(planetGroup);
         subScene.widthProperty().bind(subSceneContainer.widthProperty());
         subScene.heightProperty().bind(subSceneContainer.heightProperty());
 
@@ -102,48 +243,127 @@ public class SolarSystemController {
         rotateX.setAngle(anchorAngleX - (event.getSceneY() - anchorY) * 0.5);
     }
 
-    private void setupSlider(List<Vector> trajectory) {
+    private void setupSlider() {
         daySlider.setMin(0);
-        daySlider.setMax(trajectory.size() - 1);
+        daySlider.setMax(0);
         daySlider.setValue(0);
 
-        daySlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            int dayIndex = newVal.intValue();
-            Vector state = trajectory.get(dayIndex);
+        daySlider.valueProperty().addListener((obs, oldVal, newVal) -> showDay(newVal.doubleValue()));
+    }
 
-            for (int i = 0; i < planetNodes.size(); i++) {
-                int offset = i * 6;
-                double px = state.get(offset);
-                double py = state.get(offset + 1);
-                double pz = state.get(offset + 2);
+    private void setupPlayback() {
+        // The engine advances the slider, so dragging it while playing moves the playback too
+        playback = new PlaybackEngine(daySlider.valueProperty());
+        playButton.textProperty().bind(
+                playback.playingProperty().map(playing -> playing ? "Pause" : "Play"));
 
-                double scale = 1e-6; // adjust for scene size
-                planetNodes.get(i).setTranslateX(px * SolarSystemData.DISTANCE_SCALE);
-                planetNodes.get(i).setTranslateY(py * SolarSystemData.DISTANCE_SCALE);
-                planetNodes.get(i).setTranslateZ(pz * SolarSystemData.DISTANCE_SCALE);
+        warpChoice.getItems().setAll(WARP_DAYS);
+        warpChoice.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer days) {
+                return days == null ? "" : days + (days == 1 ? " day/s" : " days/s");
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                // Reverses toString: the leading number of days, or null if there is none
+                if (text == null) return null;
+                String days = text.trim().split("\\s+", 2)[0];
+                try {
+                    return Integer.valueOf(days);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
             }
         });
+        warpChoice.valueProperty().addListener((obs, oldVal, newVal) ->
+                playback.setWarp(newVal * (double) SolarSystemData.SECONDS_PER_DAY));
+        warpChoice.setValue(WARP_DAYS[1]);
+    }
+
+    @FXML
+    private void togglePlayback() {
+        if (playback.isPlaying()) {
+            playback.pause();
+        } else {
+            playback.play();
+        }
     }
 
+    /** Shows the bodies at a fractional day, interpolating between stored days. */
+    private void showDay(double dayIndex) {
+        TrajectoryView view = trajectory;
+        if (view == null) return;
+        if (positions == null || positions.length != 3 * view.getNumBodies()) {
+            positions = new double[3 * view.getNumBodies()];
+        }
+        if (!playback.positionsInto(dayIndex, positions)) return;
 
-    private static List<Vector> getVectors(List<Double> masses, double[] initialStateKm) {
-        SolarSystem solarSystem = new SolarSystem(masses);
-        ODESolver solver = new RK4Solver();
+        // Jumping across days, either way, would connect the trails with a straight segment
+        if (dayIndex < trailDay || dayIndex - trailDay > maxTrailGap(view)) {
+            trails.forEach(OrbitTrail::clear);
+        }
+        trailDay = dayIndex;
 
-        // Simulation parameters
-        double t0 = 0;
-        double tEnd = SolarSystemData.SECONDS_PER_DAY * 365; // 1 year
-        double dt = SolarSystemData.SECONDS_PER_DAY;         // 1 day
-
-        Vector y = new Vector(initialStateKm);
-        double t = t0;
-        List<Vector> trajectory = new ArrayList<>();
-
-        while (t < tEnd) {
-            trajectory.add(y);
-            y = solver.step(solarSystem, t, y, dt);
-            t += dt;
+        int bodies = Math.min(planetNodes.size(), view.getNumBodies());
+        for (int i = 0; i < bodies; i++) {
+            double x = positions[3 * i] * SolarSystemData.DISTANCE_SCALE;
+            double y = positions[3 * i + 1] * SolarSystemData.DISTANCE_SCALE;
+            double z = positions[3 * i + 2] * SolarSystemData.DISTANCE_SCALE;
+            planetNodes.get(i).setTranslateX(x);
+            planetNodes.get(i).setTranslateY(y);
+            planetNodes.get(i).setTranslateZ(z);
+            trails.get(i).add(x, y, z);
+        }
+
+        if (belt != null) {
+            belt.positionsInto(dayIndex * SolarSystemData.SECONDS_PER_DAY, positions, beltPositions);
+            beltRenderer.update(beltPositions, 0, 3, SolarSystemData.DISTANCE_SCALE, subScene.getCamera());
         }
-        return trajectory;
+    }
+
+
+    /** Shows a background failure in the window title; the days computed so far stay viewable. */
+    private void reportFailure(String what, Throwable error) {
+        error.printStackTrace();
+        if (subSceneContainer.getScene() != null
+                && subSceneContainer.getScene().getWindow() instanceof Stage stage) {
+            stage.setTitle(stage.getTitle() + " - " + what + " failed: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Returns the largest forward step in stored steps that still extends the trails:
+     * about one step, or while playing as far as the playback gets in a slow frame.
+     */
+    private double maxTrailGap(TrajectoryView view) {
+        double gap = TRAIL_MAX_GAP;
+        if (playback.isPlaying() && view.size() > 1) {
+            double stepSeconds = view.getTime(1) - view.getTime(0);
+            gap = Math.max(gap, playback.getWarp() * TRAIL_MAX_FRAME_SECONDS / stepSeconds);
+        }
+        return gap;
+    }
+
+    private void startPropagation(Trajectory computed) {
+        // Simulation parameters
+        double dt = SolarSystemData.SECONDS_PER_DAY; // 1 day
+        int days = 365;                              // 1 year
+
+        propagation = new PropagationTask(
+                new SolarSystem(SolarSystemData.MASS), new RK4Solver(),
+                SolarSystemData.INITIAL_STATE, 0, dt, days, computed);
+
+        // Grow the slider with the published days
+        propagation.workDoneProperty().addListener((obs, oldVal, newVal) ->
+                daySlider.setMax(Math.max(0, computed.size() - 1)));
+        propagation.setOnFailed(event -> {
+            reportFailure("Propagation", propagation.getException());
+            propagation = null;
+        });
+
+        Thread thread = new Thread(propagation, "trajectory-propagation");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
@@ -0,0 +1,247 @@
+package io.github.rajveer.dragonfly.gui;
+
+import io.github.rajveer.dragonfly.utils.ImageUtils;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.PhongMaterial;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads planet textures off the JavaFX thread.
+ * <p>
+ * Textures are decoded in parallel on daemon threads, optionally downscaled and
+ * rotated a quarter turn, and the results are cached on disk as raw ARGB pixels.
+ * A cache entry is keyed by the SHA-256 of the resource's bytes together with the
+ * rotation and size, so an edited texture never hits a stale entry. Later starts
+ * map the cached pixels straight into the image instead of decoding the JPEG.
+ * <p>
+ * Materials are filled in as their textures become ready: a small preview first,
+ * then the requested variant. Distant or small bodies can ask for a lower
+ * resolution than the full texture.
+ */
+public final class TextureLoader implements AutoCloseable {
+
+    /** Longest edge of the preview variant shown until the real texture is ready. */
+    public static final int PREVIEW_SIZE = 128;
+
+    /** Size to request the texture at its own resolution. */
+    public static final int FULL_SIZE = 0;
+
+    private static final int MAGIC = 0x44465458; // "DFTX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    /** Rotation applied to a texture after decoding. */
+    public enum Rotation {
+        NONE, LEFT, RIGHT
+    }
+
+    private final Path cacheDirectory;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a loader with one decoding thread per processor.
+     *
+     * @param cacheDirectory directory for cached textures, created when needed
+     */
+    public TextureLoader(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "texture-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the per-user cache directory, {@code ~/.dragonfly/textures}.
+     *
+     * @return the default cache directory
+     */
+    public static Path defaultCacheDirectory() {
+        return Path.of(System.getProperty("user.home"), ".dragonfly", "textures");
+    }
+
+    /**
+     * Loads a texture in the background.
+     *
+     * @param resourcePath path of the image resource in the classpath
+     * @param rotation     rotation to apply
+     * @param maxSize      longest edge of the decoded image before rotation, or
+     *                     {@link #FULL_SIZE} for the texture's own resolution
+     * @return the texture, completed on a loader thread
+     */
+    public CompletableFuture<Image> load(String resourcePath, Rotation rotation, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Texture size must not be negative: " + maxSize);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadNow(resourcePath, rotation, maxSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Sets the diffuse map of a material as soon as its textures are loaded: first
+     * a preview, then the requested variant. The material keeps whatever it shows
+     * until then, e.g. a plain diffuse colour. Failures are reported and leave the
+     * material as it is.
+     *
+     * @param material     material to update on the JavaFX thread
+     * @param resourcePath path of the image resource in the classpath
+     * @param rotation     rotation to apply
+     * @param maxSize      longest edge of the final texture, or {@link #FULL_SIZE}
+     */
+    public void applyDiffuseMap(PhongMaterial material, String resourcePath, Rotation rotation, int maxSize) {
+        AtomicBoolean done = new AtomicBoolean();
+        if (maxSize == FULL_SIZE || maxSize > PREVIEW_SIZE) {
+            load(resourcePath, rotation, PREVIEW_SIZE).thenAccept(preview -> Platform.runLater(() -> {
+                // The final texture may have won the race
+                if (!done.get()) material.setDiffuseMap(preview);
+            }));
+        }
+        load(resourcePath, rotation, maxSize).whenComplete((image, error) -> {
+            if (error != null) {
+                System.err.println("Could not load texture " + resourcePath + ": " + error);
+                return;
+            }
+            Platform.runLater(() -> {
+                done.set(true);
+                material.setDiffuseMap(image);
+            });
+        });
+    }
+
+    /** Stops the loader threads; loads already started still complete. */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Image loadNow(String resourcePath, Rotation rotation, int maxSize) throws IOException {
+        byte[] source;
+        try (InputStream in = TextureLoader.class.getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new IOException("No such resource: " + resourcePath);
+            }
+            source = in.readAllBytes();
+        }
+
+        Path cached = cacheDirectory.resolve(cacheKey(source, rotation, maxSize) + ".tex");
+        if (Files.isRegularFile(cached)) {
+            try {
+                return readCached(cached);
+            } catch (IOException e) {
+                // Damaged entry, decode again and replace it
+            }
+        }
+
+        Image decoded = maxSize == FULL_SIZE
+                ? new Image(new ByteArrayInputStream(source))
+                : new Image(new ByteArrayInputStream(source), maxSize, maxSize, true, true);
+        if (decoded.isError()) {
+            throw new IOException("Could not decode " + resourcePath, decoded.getException());
+        }
+
+        int width = (int) decoded.getWidth();
+        int height = (int) decoded.getHeight();
+        int[] pixels = new int[width * height];
+        decoded.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        if (rotation != Rotation.NONE) {
+            pixels = ImageUtils.rotatePixels(pixels, width, height, rotation == Rotation.RIGHT);
+            int swap = width;
+            width = height;
+            height = swap;
+        }
+
+        try {
+            writeCached(cached, pixels, width, height);
+        } catch (IOException e) {
+            // The cache is an optimisation only
+            System.err.println("Could not cache texture " + resourcePath + ": " + e);
+        }
+
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+
+    private static String cacheKey(byte[] source, Rotation rotation, int maxSize) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(source);
+            return HexFormat.of().formatHex(sha.digest()) + "-" + rotation.name().toLowerCase() + "-" + maxSize;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Image readCached(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Truncated texture cache entry: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int width = mapped.getInt(8);
+            int height = mapped.getInt(12);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || width <= 0 || height <= 0
+                    || size != HEADER_BYTES + 4L * width * height) {
+                throw new IOException("Not a texture cache entry: " + file);
+            }
+            IntBuffer pixels = mapped.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+            WritableImage image = new WritableImage(width, height);
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, width);
+            return image;
+        }
+    }
+
+    /** Writes an entry to a temporary file first, so readers never see a partial one. */
+    private static void writeCached(Path file, int[] pixels, int width, int height) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "texture", ".tmp");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * pixels.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+            buffer.asIntBuffer().put(pixels);
+            buffer.rewind();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
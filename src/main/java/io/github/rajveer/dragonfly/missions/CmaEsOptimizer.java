@@ -0,0 +1,304 @@
+package io.github.rajveer.dragonfly.missions;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * Covariance matrix adaptation evolution strategy (CMA-ES), after Hansen's
+ * reference formulation with rank-one and rank-μ updates and cumulative step-size
+ * adaptation.
+ * <p>
+ * Each generation samples λ candidates from a multivariate normal distribution,
+ * projects them onto the feasible set and evaluates them together through
+ * {@link Objective#evaluateAll(double[][], double[])}, so a whole population runs in
+ * parallel. The search runs in coordinates scaled by the initial step sizes, which
+ * lets variables with very different units, such as km and km/s, share one
+ * distribution. Projected candidates replace their samples in the update.
+ * <p>
+ * The run stops when the budget is spent, when the distribution has shrunk below
+ * the tolerance in scaled coordinates, or when the best costs of the recent
+ * generations lie within the relative tolerance of each other.
+ */
+public class CmaEsOptimizer implements Optimizer {
+
+    private final double[] initialSteps;
+    private final int populationSize;
+    private final int maxEvaluations;
+    private final double tolerance;
+
+    /**
+     * Creates a CMA-ES optimizer with the default population size 4 + ⌊3 ln n⌋.
+     *
+     * @param initialSteps   initial standard deviation per coordinate
+     * @param maxEvaluations maximum number of objective evaluations
+     * @param tolerance      relative tolerance on scaled step size and on cost stagnation
+     */
+    public CmaEsOptimizer(double[] initialSteps, int maxEvaluations, double tolerance) {
+        this(initialSteps, 0, maxEvaluations, tolerance);
+    }
+
+    /**
+     * Creates a CMA-ES optimizer.
+     *
+     * @param initialSteps   initial standard deviation per coordinate
+     * @param populationSize candidates per generation λ, or 0 for the default 4 + ⌊3 ln n⌋
+     * @param maxEvaluations maximum number of objective evaluations
+     * @param tolerance      relative tolerance on scaled step size and on cost stagnation
+     */
+    public CmaEsOptimizer(double[] initialSteps, int populationSize, int maxEvaluations, double tolerance) {
+        if (populationSize != 0 && populationSize < 2) {
+            throw new IllegalArgumentException("Population size must be at least 2: " + populationSize);
+        }
+        if (maxEvaluations < 1) {
+            throw new IllegalArgumentException("Evaluation budget must be positive: " + maxEvaluations);
+        }
+        for (double step : initialSteps) {
+            if (!(step > 0)) {
+                throw new IllegalArgumentException("Initial steps must be positive: " + Arrays.toString(initialSteps));
+            }
+        }
+        this.initialSteps = initialSteps.clone();
+        this.populationSize = populationSize;
+        this.maxEvaluations = maxEvaluations;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public OptimizationResult minimize(Objective objective, double[] start, SplittableRandom rng) {
+        int n = objective.dimension();
+        if (initialSteps.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " initial steps, got " + initialSteps.length);
+        }
+
+        // Strategy parameters
+        int lambda = populationSize > 0 ? populationSize : 4 + (int) Math.floor(3 * Math.log(n));
+        int mu = lambda / 2;
+        double[] weights = new double[mu];
+        double sum = 0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+            sum += weights[i];
+        }
+        double sumSq = 0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] /= sum;
+            sumSq += weights[i] * weights[i];
+        }
+        double muEff = 1 / sumSq;
+
+        double cc = (4 + muEff / n) / (n + 4 + 2 * muEff / n);
+        double cs = (muEff + 2) / (n + muEff + 5);
+        double c1 = 2 / ((n + 1.3) * (n + 1.3) + muEff);
+        double cmu = Math.min(1 - c1, 2 * (muEff - 2 + 1 / muEff) / ((n + 2) * (n + 2) + muEff));
+        double damps = 1 + 2 * Math.max(0, Math.sqrt((muEff - 1) / (n + 1)) - 1) + cs;
+        double chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21.0 * n * n));
+        int history = 10 + (int) Math.ceil(30.0 * n / lambda);
+
+        // Dynamic state, in coordinates scaled by the initial steps around the start
+        double[] mean = new double[n];
+        double sigma = 1;
+        double[] pc = new double[n];
+        double[] ps = new double[n];
+        double[][] cov = new double[n][n];
+        double[][] basis = new double[n][n];
+        double[] scales = new double[n];
+        for (int i = 0; i < n; i++) {
+            cov[i][i] = 1;
+        }
+
+        double[][] samples = new double[lambda][n];
+        double[][] points = new double[lambda][n];
+        double[] costs = new double[lambda];
+        Integer[] order = new Integer[lambda];
+        double[] z = new double[n];
+        double[] oldMean = new double[n];
+        double[] step = new double[n];
+        double[] recent = new double[history];
+
+        double[] best = start.clone();
+        objective.project(best);
+        double bestCost = Double.POSITIVE_INFINITY;
+        int evaluations = 0;
+
+        for (int generation = 0; evaluations + lambda <= maxEvaluations; generation++) {
+            eigen(cov, scales, basis);
+            for (int i = 0; i < n; i++) {
+                scales[i] = Math.sqrt(Math.max(scales[i], 0));
+            }
+
+            // Sample, project and rescale
+            for (int k = 0; k < lambda; k++) {
+                for (int i = 0; i < n; i++) {
+                    z[i] = scales[i] * gaussian(rng);
+                }
+                double[] x = points[k];
+                for (int i = 0; i < n; i++) {
+                    double yi = 0;
+                    for (int j = 0; j < n; j++) {
+                        yi += basis[i][j] * z[j];
+                    }
+                    x[i] = start[i] + initialSteps[i] * (mean[i] + sigma * yi);
+                }
+                objective.project(x);
+                for (int i = 0; i < n; i++) {
+                    samples[k][i] = (x[i] - start[i]) / initialSteps[i];
+                }
+                order[k] = k;
+            }
+
+            objective.evaluateAll(points, costs);
+            evaluations += lambda;
+            Arrays.sort(order, Comparator.comparingDouble(k -> costs[k]));
+
+            if (costs[order[0]] < bestCost) {
+                bestCost = costs[order[0]];
+                best = points[order[0]].clone();
+            }
+
+            // Recombination
+            System.arraycopy(mean, 0, oldMean, 0, n);
+            Arrays.fill(mean, 0);
+            for (int r = 0; r < mu; r++) {
+                double[] s = samples[order[r]];
+                for (int i = 0; i < n; i++) {
+                    mean[i] += weights[r] * s[i];
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                step[i] = (mean[i] - oldMean[i]) / sigma;
+            }
+
+            // Conjugate evolution path with C^(-1/2)·step = B·D⁻¹·Bᵀ·step
+            double psNorm = 0;
+            for (int j = 0; j < n; j++) {
+                double c = 0;
+                for (int i = 0; i < n; i++) {
+                    c += basis[i][j] * step[i];
+                }
+                z[j] = scales[j] > 0 ? c / scales[j] : 0;
+            }
+            double csFactor = Math.sqrt(cs * (2 - cs) * muEff);
+            for (int i = 0; i < n; i++) {
+                double c = 0;
+                for (int j = 0; j < n; j++) {
+                    c += basis[i][j] * z[j];
+                }
+                ps[i] = (1 - cs) * ps[i] + csFactor * c;
+                psNorm += ps[i] * ps[i];
+            }
+            psNorm = Math.sqrt(psNorm);
+
+            boolean hsig = psNorm / Math.sqrt(1 - Math.pow(1 - cs, 2.0 * (generation + 1))) / chiN
+                    < 1.4 + 2.0 / (n + 1);
+            double ccFactor = Math.sqrt(cc * (2 - cc) * muEff);
+            for (int i = 0; i < n; i++) {
+                pc[i] = (1 - cc) * pc[i] + (hsig ? ccFactor * step[i] : 0);
+            }
+
+            // Rank-one and rank-μ covariance update
+            double keep = 1 - c1 - cmu + (hsig ? 0 : c1 * cc * (2 - cc));
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double rankMu = 0;
+                    for (int r = 0; r < mu; r++) {
+                        double[] s = samples[order[r]];
+                        rankMu += weights[r] * (s[i] - oldMean[i]) * (s[j] - oldMean[j]);
+                    }
+                    double c = keep * cov[i][j] + c1 * pc[i] * pc[j] + cmu * rankMu / (sigma * sigma);
+                    cov[i][j] = c;
+                    cov[j][i] = c;
+                }
+            }
+
+            sigma *= Math.exp(Math.min(1, (cs / damps) * (psNorm / chiN - 1)));
+
+            // Convergence: distribution collapsed, or costs stagnated
+            double maxScale = 0;
+            for (int i = 0; i < n; i++) {
+                maxScale = Math.max(maxScale, Math.sqrt(cov[i][i]));
+            }
+            recent[generation % history] = costs[order[0]];
+            if (sigma * maxScale < tolerance) {
+                return new OptimizationResult(best, bestCost, evaluations, true);
+            }
+            if (generation + 1 >= history) {
+                double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+                for (double c : recent) {
+                    lo = Math.min(lo, c);
+                    hi = Math.max(hi, c);
+                }
+                double spread = Math.max(hi, costs[order[lambda - 1]]) - lo;
+                if (spread <= tolerance * Math.abs(lo)) {
+                    return new OptimizationResult(best, bestCost, evaluations, true);
+                }
+            }
+        }
+        return new OptimizationResult(best, bestCost, evaluations, false);
+    }
+
+    /** Draws a standard normal variate with the Box–Muller transform. */
+    private static double gaussian(SplittableRandom rng) {
+        double u = 1 - rng.nextDouble();
+        double v = rng.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    /**
+     * Eigen-decomposition of a symmetric matrix by cyclic Jacobi rotations.
+     *
+     * @param a      the symmetric matrix; not modified
+     * @param values receives the eigenvalues
+     * @param vectors receives the eigenvectors as columns
+     */
+    static void eigen(double[][] a, double[] values, double[][] vectors) {
+        int n = a.length;
+        double[][] m = new double[n][];
+        for (int i = 0; i < n; i++) {
+            m[i] = a[i].clone();
+            Arrays.fill(vectors[i], 0);
+            vectors[i][i] = 1;
+        }
+
+        for (int sweep = 0; sweep < 64; sweep++) {
+            double off = 0;
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    off += m[p][q] * m[p][q];
+                }
+            }
+            if (off == 0) break;
+
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    if (m[p][q] == 0) continue;
+                    double theta = (m[q][q] - m[p][p]) / (2 * m[p][q]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) t = 1;
+                    double c = 1 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+
+                    for (int k = 0; k < n; k++) {
+                        double mkp = m[k][p], mkq = m[k][q];
+                        m[k][p] = c * mkp - s * mkq;
+                        m[k][q] = s * mkp + c * mkq;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double mpk = m[p][k], mqk = m[q][k];
+                        m[p][k] = c * mpk - s * mqk;
+                        m[q][k] = s * mpk + c * mqk;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double vkp = vectors[k][p], vkq = vectors[k][q];
+                        vectors[k][p] = c * vkp - s * vkq;
+                        vectors[k][q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            values[i] = m[i][i];
+        }
+    }
+}
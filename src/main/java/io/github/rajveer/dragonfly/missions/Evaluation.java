@@ -0,0 +1,79 @@
+package io.github.rajveer.dragonfly.missions;
+
+/**
+ * Outcome of integrating a single probe trajectory.
+ */
+public final class Evaluation {
+
+    /** How the integration of a probe ended. */
+    public enum Status {
+        /** The probe was integrated to the horizon; the cost is its final miss distance. */
+        COMPLETED,
+        /** The probe hit a body; the cost is the collision penalty. */
+        COLLIDED,
+        /**
+         * The integration was abandoned once the probe was unlikely to beat the
+         * requested bound; the cost is an estimate of the smallest reachable miss
+         * distance that already exceeds it.
+         */
+        PRUNED
+    }
+
+    private final Status status;
+    private final double cost;
+    private final double time;
+    private final double closestApproach;
+
+    /**
+     * Creates an evaluation.
+     *
+     * @param status how the integration ended
+     * @param cost   the cost, see {@link Status}
+     * @param time   simulation time at which the integration stopped, in seconds
+     * @param closestApproach smallest distance to the target up to that time, in km
+     */
+    public Evaluation(Status status, double cost, double time, double closestApproach) {
+        this.status = status;
+        this.cost = cost;
+        this.time = time;
+        this.closestApproach = closestApproach;
+    }
+
+    /**
+     * Returns how the integration ended.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the cost. For a pruned probe this is an estimate rather than the
+     * exact miss distance.
+     *
+     * @return the cost
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns the simulation time at which the integration stopped.
+     *
+     * @return the time in seconds
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the smallest distance to the target over the integrated part of the
+     * trajectory, located between steps rather than sampled at them.
+     *
+     * @return the closest approach in km
+     */
+    public double getClosestApproach() {
+        return closestApproach;
+    }
+}
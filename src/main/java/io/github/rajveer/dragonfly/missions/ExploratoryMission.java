@@ -1,22 +1,40 @@
 package io.github.rajveer.dragonfly.missions;
 
+import io.github.rajveer.dragonfly.ode.EventFunction;
+import io.github.rajveer.dragonfly.ode.EventLocator;
 import io.github.rajveer.dragonfly.ode.ODESolver;
 import io.github.rajveer.dragonfly.ode.RK4Solver;
+import io.github.rajveer.dragonfly.systems.Ephemeris;
+import io.github.rajveer.dragonfly.systems.EphemerisSystem;
+import io.github.rajveer.dragonfly.systems.GravitySystem;
 import io.github.rajveer.dragonfly.systems.SolarSystem;
-import io.github.rajveer.dragonfly.utils.Vector;
+import io.github.rajveer.dragonfly.systems.VariationalEphemerisSystem;
+import io.github.rajveer.dragonfly.utils.Trajectory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Probe optimizer that searches for an initial probe state (rx,ry,rz,vx,vy,vz)
  * placed on Earth's surface that minimises final distance to Titan after 1 year.
  *
- * - Uses finite-difference gradient descent with random restarts.
- * - Probe mass = 50,000 kg appended as last body.
- * - Keeps SolarSystem class unchanged (Sun remains fixed in your current implementation).
+ * - Runs any {@link Optimizer} from several restarts, by default gradient descent.
+ *   Restarts start from the best Lambert transfers to Titan first and from random
+ *   launch states after that, see {@link #setLambertSeeding(boolean)}.
+ *   Gradients come from central finite differences by default, or from the
+ *   variational equations, see {@link GradientMode}.
+ * - Probes are massless test particles; their pull on the planets is negligible, so
+ *   all finite-difference probes of an iteration are integrated together in one pass.
+ * - The planets do not depend on the probes, so they are integrated once into a
+ *   shared {@link Ephemeris} and the probes move in its interpolated field.
+ * - Collisions are found at each closest approach located between the steps, so
+ *   fast flybys cannot pass through a body unnoticed, see {@link EventLocator}.
+ * - Sun remains fixed.
  *
  * Units:
  * <ul>
@@ -70,8 +88,11 @@ public class ExploratoryMission {
     private static final int TITAN_BODY_INDEX = 8;
     private static final int BASE_NUM_BODIES = 11; // Sun..Neptune (no probe)
 
-    /** Index of probe when appended to the SolarSystem. (i.e. 11) */
-    private static final int PROBE_INDEX = BASE_NUM_BODIES;
+    /** Cost assigned to a probe that collides with a body. */
+    private static final double COLLISION_PENALTY = 1e12;
+
+    /** Time bracket in seconds within which encounter events are located. */
+    private static final double EVENT_CONVERGENCE = 1.0;
 
     /** Seconds per Time unit. */
     private static final double SECONDS_PER_DAY = 86400.0;
@@ -81,111 +102,412 @@ public class ExploratoryMission {
     /** Maximum allowed initial velocity relative to Earth in km/s. */
     private static final double MAX_V_KM_PER_S = 60.0; //
 
-    /** Probe mass in kg. (only affects its own motion) */
-    private static final double PROBE_MASS_KG = 50_000.0;
+    /** Span of arrival times before the one-year horizon searched for Lambert seeds. */
+    private static final double SEED_WINDOW_SECONDS = 30 * SECONDS_PER_DAY;
+
+    /**
+     * Lazily built ephemeris of the base bodies over the mission year, integrated with
+     * the same solver and step as the probes. Shared by all instances.
+     */
+    private static final class EphemerisHolder {
+        static final Ephemeris EPHEMERIS = Ephemeris.integrate(
+                new SolarSystem(BASE_MASSES), INITIAL_STATE_KM, 0.0, DT,
+                (int) Math.round(ONE_YEAR_SECONDS / DT), new RK4Solver());
+
+        /** Titan's highest speed relative to the Sun at the nodes, with 1% for interpolation. */
+        static final double TITAN_MAX_SPEED = titanMaxSpeed();
+
+        private static double titanMaxSpeed() {
+            double[] state = new double[6 * BASE_NUM_BODIES];
+            double max = 0;
+            for (int step = 0; step * DT <= EPHEMERIS.getEndTime(); step++) {
+                EPHEMERIS.stateInto(step * DT, state);
+                double vx = state[TITAN_BODY_INDEX * 6 + 3] - state[3];
+                double vy = state[TITAN_BODY_INDEX * 6 + 4] - state[4];
+                double vz = state[TITAN_BODY_INDEX * 6 + 5] - state[5];
+                max = Math.max(max, Math.sqrt(vx*vx + vy*vy + vz*vz));
+            }
+            return 1.01 * max;
+        }
+    }
+
+    /**
+     * Largest surface escape speed among the bodies other than the Sun in km/s, added
+     * to the probe's speed estimate for a flyby. A heuristic: it roughly matches what
+     * one close flyby can add, but several flybys can add more.
+     */
+    private static final double FLYBY_ALLOWANCE = flybyAllowance();
+
+    private static double flybyAllowance() {
+        double max = 0;
+        for (int i = 1; i < BASE_NUM_BODIES; i++) {
+            max = Math.max(max, Math.sqrt(2 * GravitySystem.G * BASE_MASSES.get(i) / PLANET_RADII_KM[i]));
+        }
+        return max;
+    }
+
+    /** How the optimizer obtains the gradient of the cost. */
+    public enum GradientMode {
+        /** Exact gradient from the state transition matrix, one augmented integration. */
+        VARIATIONAL,
+        /** Central finite differences, 13 probe integrations. */
+        FINITE_DIFFERENCE
+    }
+
+    /** Seed of the per-epoch random streams. */
+    private final long seed;
+
+    /** Pool running the epochs and finite-difference probes. */
+    private final ForkJoinPool pool;
+
+    /** Gradient source used by {@link #optimize(int, int)}. */
+    private GradientMode gradientMode = GradientMode.FINITE_DIFFERENCE;
+
+    /** Whether restarts start from Lambert transfers instead of random launch states. */
+    private boolean lambertSeeding = true;
+
+    /** Whether evaluations against a bound may stop early, see {@link #evaluate(double[], double)}. */
+    private boolean pruning = false;
+
+    /**
+     * Creates a mission optimizer with a random seed on the common pool.
+     */
+    public ExploratoryMission() {
+        this(new SplittableRandom().nextLong(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a mission optimizer on the common pool.
+     *
+     * @param seed seed for the random restarts; equal seeds give equal results
+     */
+    public ExploratoryMission(long seed) {
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a mission optimizer.
+     *
+     * @param seed seed for the random restarts; equal seeds give equal results
+     * @param pool pool running the epochs and finite-difference probes
+     */
+    public ExploratoryMission(long seed, ForkJoinPool pool) {
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets how the optimizer obtains gradients. The default is
+     * {@link GradientMode#FINITE_DIFFERENCE}; {@link GradientMode#VARIATIONAL} gives
+     * the exact gradient at the cost of one integration instead of 13.
+     *
+     * @param gradientMode the gradient source
+     */
+    public void setGradientMode(GradientMode gradientMode) {
+        this.gradientMode = gradientMode;
+    }
+
+    /**
+     * Sets whether restarts start from the best Lambert transfers to Titan, see
+     * {@link #lambertSeeds(int)}. Restarts beyond the available seeds, or all of them
+     * when disabled, start from random launch states.
+     *
+     * @param lambertSeeding true to seed restarts from Lambert transfers
+     */
+    public void setLambertSeeding(boolean lambertSeeding) {
+        this.lambertSeeding = lambertSeeding;
+    }
+
+    /**
+     * Sets whether evaluations against a bound may be abandoned early. Off by
+     * default: the cutoff rests on a speed estimate, not a proven bound, so it can
+     * occasionally drop a probe that would have beaten the bound. Enabling it trades
+     * that risk for shorter searches.
+     *
+     * @param pruning true to abandon probes that are unlikely to beat their bound
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
 
-    /** ODE solver (RK4). */
-    private final ODESolver solver = new RK4Solver();
-    private final Random rng = new Random();
+    /**
+     * Returns initial step sizes for derivative-free optimizers over the launch state:
+     * a sixth of Earth's radius in position and 5 km/s in velocity.
+     *
+     * @return steps [rx, ry, rz, vx, vy, vz] in km and km/s
+     */
+    public static double[] defaultLaunchSteps() {
+        double pos = PLANET_RADII_KM[EARTH_BODY_INDEX] / 6;
+        return new double[] { pos, pos, pos, 5, 5, 5 };
+    }
 
     /**
-     * Find a good initial probe state using random-restart finite-difference gradient descent.
+     * Find a good initial probe state using random-restart gradient descent.
+     * <p>
+     * Epochs run concurrently on the pool, and so do the finite-difference probes
+     * within each iteration when {@link GradientMode#FINITE_DIFFERENCE} is selected.
      *
      * @param epochs    number of random restarts
      * @param iters     gradient-descent iterations per restart
      * @return best found initial state vector [rx,ry,rz,vx,vy,vz] (km, km/s)
      */
     public double[] optimize(int epochs, int iters) {
-        // base guess (start from Earth's COM + Earth's velocity)
-        double[] base = new double[6];
-        int earthPosIdx = EARTH_BODY_INDEX * 6;
-        base[0] = INITIAL_STATE_KM[earthPosIdx];
-        base[1] = INITIAL_STATE_KM[earthPosIdx + 1];
-        base[2] = INITIAL_STATE_KM[earthPosIdx + 2];
-        base[3] = INITIAL_STATE_KM[earthPosIdx + 3];
-        base[4] = INITIAL_STATE_KM[earthPosIdx + 4];
-        base[5] = INITIAL_STATE_KM[earthPosIdx + 5];
-
-        double[] best = null;
-        double bestCost = Double.POSITIVE_INFINITY;
-
-        for (int e = 0; e < epochs; e++) {
-            // Start probe on Earth's surface (random point); initial velocity = Earth's vel
-            double[] x = placeProbeOnEarthSurface();
-
-            // small random perturb to velocity to explore different launch directions
-            for (int k = 3; k < 6; k++) {
-                x[k] += (rng.nextDouble() * 2 - 1) * 0.005; // ±0.005 km/s
+        // different learning rates for position and velocity, small noise to escape shallow local minima
+        double lrPos = 1e2;    // km per gradient unit (tunable)
+        double lrVel = 1e-2;   // km/s per gradient unit (tunable)
+        Optimizer descent = new GradientDescentOptimizer(
+                new double[] { lrPos, lrPos, lrPos, lrVel, lrVel, lrVel }, 1e-4, iters, 0);
+        return optimize(descent, epochs).getPoint();
+    }
+
+    /**
+     * Find a good initial probe state by running an optimizer from several launch
+     * states on Earth's surface: the best Lambert transfers, then random states.
+     * <p>
+     * Restarts run concurrently on the pool. Every restart draws from its own random
+     * stream split from the seed in restart order, and ties are won by the lowest
+     * restart, so the result does not depend on scheduling.
+     *
+     * @param optimizer the optimizer to run
+     * @param restarts  number of random restarts
+     * @return the best result; its evaluation count is the total over all restarts
+     */
+    public OptimizationResult optimize(Optimizer optimizer, int restarts) {
+        if (restarts < 1) {
+            throw new IllegalArgumentException("At least one restart is required: " + restarts);
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        List<double[]> seeds = lambertSeeding ? lambertSeeds(restarts) : List.of();
+        Objective objective = new LaunchObjective();
+        OptimizationResult[] results = new OptimizationResult[restarts];
+        List<RecursiveAction> tasks = new ArrayList<>(restarts);
+        for (int e = 0; e < restarts; e++) {
+            int restart = e;
+            SplittableRandom rng = root.split();
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    double[] start = restart < seeds.size() ? seeds.get(restart) : randomLaunchState(rng);
+                    results[restart] = optimizer.minimize(objective, start, rng);
+                    System.out.printf("[restart %d] cost %.3f km after %d evaluations%n",
+                            restart, results[restart].getCost(), results[restart].getEvaluations());
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
             }
-            enforceVelocityConstraintRelativeToEarth(x);
+        });
+
+        OptimizationResult best = results[0];
+        int evaluations = 0;
+        for (OptimizationResult result : results) {
+            evaluations += result.getEvaluations();
+            if (result.getCost() < best.getCost()) {
+                best = result;
+            }
+        }
+        System.out.println("Optimization finished. Best cost = " + best.getCost());
+        return new OptimizationResult(best.getPoint(), best.getCost(), evaluations, best.isConverged());
+    }
+
+    /**
+     * Computes launch states from Keplerian Earth–Titan transfers.
+     * <p>
+     * The probe launches at t = 0 and is scored one year later, so the porkchop grid
+     * holds the single departure epoch 0 and arrival times in the last
+     * {@link #SEED_WINDOW_SECONDS} before the horizon, for both prograde and retrograde
+     * transfers. Each cell becomes a launch from Earth's surface along the departure
+     * asymptote, with the surface speed raised by Earth's escape speed and capped at
+     * {@link #MAX_V_KM_PER_S}. Cells are ranked by the distance the probe drifts from
+     * Titan between arrival and the horizon, then by departure Δv.
+     *
+     * @param count maximum number of seeds
+     * @return up to count launch states [rx, ry, rz, vx, vy, vz], best first
+     */
+    public List<double[]> lambertSeeds(int count) {
+        Ephemeris ephemeris = EphemerisHolder.EPHEMERIS;
+        int cells = (int) Math.round(SEED_WINDOW_SECONDS / DT) + 1;
+        double[] flightTimes = new double[cells];
+        for (int j = 0; j < cells; j++) {
+            flightTimes[j] = ONE_YEAR_SECONDS - j * DT;
+        }
 
-            for (int iter = 0; iter < iters; iter++) {
-                double cost = evaluateCost(x);
-                if (Double.isFinite(cost) && cost < bestCost) {
-                    bestCost = cost;
-                    best = x.clone();
-                    System.out.printf("[epoch %d iter %d] new best: %.3f km%n", e, iter, bestCost);
+        int earthPosIdx = EARTH_BODY_INDEX * 6;
+        double earthRadius = PLANET_RADII_KM[EARTH_BODY_INDEX];
+        double escapeSq = 2 * GravitySystem.G * BASE_MASSES.get(EARTH_BODY_INDEX) / earthRadius;
+
+        List<double[]> seeds = new ArrayList<>();
+        List<double[]> ranks = new ArrayList<>();
+        double[] v1 = new double[3];
+        for (boolean prograde : new boolean[] { true, false }) {
+            Porkchop grid = Porkchop.compute(ephemeris, 0, EARTH_BODY_INDEX, TITAN_BODY_INDEX, prograde,
+                    new double[] { 0.0 }, flightTimes, pool);
+            for (int j = 0; j < cells; j++) {
+                double dv = grid.getDepartureDeltaV(0, j);
+                if (!(dv > 0)) continue;
+                double launchSpeed = Math.min(Math.sqrt(dv * dv + escapeSq), MAX_V_KM_PER_S);
+
+                grid.departureVelocityInto(0, j, v1);
+                double[] x = new double[6];
+                for (int k = 0; k < 3; k++) {
+                    double dir = (v1[k] - INITIAL_STATE_KM[earthPosIdx + 3 + k]) / dv;
+                    x[k] = INITIAL_STATE_KM[earthPosIdx + k] + earthRadius * dir;
+                    x[3 + k] = INITIAL_STATE_KM[earthPosIdx + 3 + k] + launchSpeed * dir;
                 }
+                double drift = grid.getArrivalDeltaV(0, j) * (ONE_YEAR_SECONDS - grid.getFlightTime(j));
+                seeds.add(x);
+                ranks.add(new double[] { drift, dv });
+            }
+        }
 
-                // finite difference gradient
-                double epsPos = 1e-2;   // km (small step for pos)
-                double epsVel = 1e-5;   // km/s (small step for vel)
-                double[] grad = new double[6];
+        Integer[] order = new Integer[seeds.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = Double.compare(ranks.get(a)[0], ranks.get(b)[0]);
+            return c != 0 ? c : Double.compare(ranks.get(a)[1], ranks.get(b)[1]);
+        });
 
-                // baseline cost may be needed; compute once
-                double baseline = cost;
+        List<double[]> best = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, order.length); i++) {
+            best.add(seeds.get(order[i]));
+        }
+        return best;
+    }
 
-                for (int k = 0; k < 6; k++) {
-                    double old = x[k];
-                    if (k < 3) x[k] = old + epsPos;
-                    else x[k] = old + epsVel;
+    /**
+     * Draws a random launch state: a point on Earth's surface with Earth's velocity
+     * slightly perturbed to explore different launch directions.
+     *
+     * @param rng Random stream to draw from.
+     * @return Probe initial state [rx, ry, rz, vx, vy, vz].
+     */
+    private double[] randomLaunchState(SplittableRandom rng) {
+        // Start probe on Earth's surface (random point); initial velocity = Earth's vel
+        double[] x = placeProbeOnEarthSurface(rng);
 
-                    double cplus = evaluateCost(x);
+        // small random perturb to velocity to explore different launch directions
+        for (int k = 3; k < 6; k++) {
+            x[k] += (rng.nextDouble() * 2 - 1) * 0.005; // ±0.005 km/s
+        }
+        enforceVelocityConstraintRelativeToEarth(x);
+        return x;
+    }
 
-                    // reset
-                    x[k] = old;
+    /**
+     * Miss distance to Titan over the launch state, constrained to Earth's surface
+     * and to the maximum launch speed relative to Earth.
+     */
+    private final class LaunchObjective implements Objective {
 
-                    // central difference using symmetric step if possible:
-                    if (k < 3) x[k] = old - epsPos;
-                    else x[k] = old - epsVel;
+        @Override
+        public int dimension() {
+            return 6;
+        }
 
-                    double cminus = evaluateCost(x);
-                    x[k] = old;
+        @Override
+        public double evaluate(double[] x) {
+            return evaluateCost(x);
+        }
 
-                    if (!Double.isFinite(cplus) || !Double.isFinite(cminus)) {
-                        // if either side crashes, push away from crash direction
-                        grad[k] = Double.isFinite(cplus) ? (cplus - baseline) / (k < 3 ? epsPos : epsVel) : -1.0;
-                    } else {
-                        grad[k] = (cplus - cminus) / ( (k < 3 ? 2*epsPos : 2*epsVel) );
-                    }
-                }
+        @Override
+        public double evaluate(double[] x, double bound) {
+            return ExploratoryMission.this.evaluate(x, bound).getCost();
+        }
 
-                // gradient step: different learning rates for position and velocity
-                double lrPos = 1e2;    // km per gradient unit (tunable)
-                double lrVel = 1e-2;   // km/s per gradient unit (tunable)
+        @Override
+        public void evaluateAll(double[][] xs, double[] costs) {
+            double[] result = evaluateCostsInParallel(xs);
+            System.arraycopy(result, 0, costs, 0, result.length);
+        }
 
-                for (int k = 0; k < 3; k++) x[k] -= lrPos * grad[k];
-                for (int k = 3; k < 6; k++) x[k] -= lrVel * grad[k];
+        @Override
+        public void project(double[] x) {
+            enforceProbeOnEarthSurface(x);
+            enforceVelocityConstraintRelativeToEarth(x);
+        }
 
-                // keep the probe initially on Earth's surface (enforce starting radius)
-                enforceProbeOnEarthSurface(x);
+        @Override
+        public boolean hasGradient() {
+            return true;
+        }
 
-                // enforce velocity constraint relative to Earth's vel
-                enforceVelocityConstraintRelativeToEarth(x);
+        @Override
+        public double evaluateWithGradient(double[] x, double[] grad) {
+            return gradientMode == GradientMode.VARIATIONAL
+                    ? evaluateCostAndGradient(x, grad)
+                    : finiteDifferenceGradient(x, grad);
+        }
+    }
 
-                // small noise to escape shallow local minima
-                for (int k = 0; k < 6; k++) {
-                    x[k] += (rng.nextDouble() * 2 - 1) * 1e-4;
-                }
+    /**
+     * Estimates the gradient of the cost by central finite differences, evaluating
+     * the 13 probes in parallel.
+     *
+     * @param x    Probe state [rx, ry, rz, vx, vy, vz].
+     * @param grad Receives the gradient.
+     * @return Cost of x.
+     */
+    private double finiteDifferenceGradient(double[] x, double[] grad) {
+        // finite difference steps
+        double epsPos = 1e-2;   // km (small step for pos)
+        double epsVel = 1e-5;   // km/s (small step for vel)
+
+        // x itself followed by x + eps and x - eps along every component
+        double[][] probes = new double[13][];
+        probes[0] = x.clone();
+        for (int k = 0; k < 6; k++) {
+            double eps = k < 3 ? epsPos : epsVel;
+            probes[1 + 2 * k] = x.clone();
+            probes[1 + 2 * k][k] += eps;
+            probes[2 + 2 * k] = x.clone();
+            probes[2 + 2 * k][k] -= eps;
+        }
+        double[] costs = evaluateCostsInParallel(probes);
+
+        double baseline = costs[0];
+        for (int k = 0; k < 6; k++) {
+            double cplus = costs[1 + 2 * k];
+            double cminus = costs[2 + 2 * k];
+
+            if (!Double.isFinite(cplus) || !Double.isFinite(cminus)) {
+                // if either side crashes, push away from crash direction
+                grad[k] = Double.isFinite(cplus) ? (cplus - baseline) / (k < 3 ? epsPos : epsVel) : -1.0;
+            } else {
+                grad[k] = (cplus - cminus) / ( (k < 3 ? 2*epsPos : 2*epsVel) );
             }
         }
+        return baseline;
+    }
 
-        System.out.println("Optimization finished. Best cost = " + bestCost);
-        if (best == null) {
-            // fallback: return place on Earth surface with no delta-V
-            return placeProbeOnEarthSurface();
+    /**
+     * Evaluates probes as parallel subtasks, each integrating a contiguous batch of
+     * probes as test particles. A probe's cost does not depend on the batch it is
+     * integrated with.
+     *
+     * @param probes Initial probe states [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @return Cost of each probe, in the same order.
+     */
+    private double[] evaluateCostsInParallel(double[][] probes) {
+        double[] costs = new double[probes.length];
+        int workers = pool.getParallelism();
+        int chunk = Math.max(1, (probes.length + workers - 1) / workers);
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int from = 0; from < probes.length; from += chunk) {
+            int start = from;
+            int end = Math.min(probes.length, from + chunk);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    double[] part = evaluateCosts(Arrays.copyOfRange(probes, start, end));
+                    System.arraycopy(part, 0, costs, start, part.length);
+                }
+            });
         }
-        return best;
+        ForkJoinTask.invokeAll(tasks);
+        return costs;
     }
 
     /**
@@ -196,63 +518,415 @@ public class ExploratoryMission {
      * @return Final distance to Titan in km, or a large penalty if collision occurs.
      */
     private double evaluateCost(double[] x) {
-        try {
-            // Compose masses (append probe mass)
-            List<Double> masses = new ArrayList<>(BASE_MASSES);
-            masses.add(PROBE_MASS_KG);
+        return evaluateCosts(new double[][] { x })[0];
+    }
 
-            // Compose full state (base bodies + probe appended)
-            double[] full = Arrays.copyOf(INITIAL_STATE_KM, INITIAL_STATE_KM.length + 6);
-            int probeOffset = INITIAL_STATE_KM.length;
-            System.arraycopy(x, 0, full, probeOffset, 6);
+    /**
+     * Computes the cost for a given probe starting state together with its exact
+     * gradient. The probe is integrated with its state transition matrix Φ, and the
+     * gradient of the final distance d = |r - r_Titan| is uᵀ·Φ_r, where u is the unit
+     * miss vector and Φ_r the position rows of Φ.
+     *
+     * @param x    Initial probe state [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @param grad Receives the gradient with respect to x; zero if the probe collides.
+     * @return Final distance to Titan in km, or a large penalty if collision occurs.
+     */
+    private double evaluateCostAndGradient(double[] x, double[] grad) {
+        Arrays.fill(grad, 0);
+        try {
+            Ephemeris ephemeris = EphemerisHolder.EPHEMERIS;
+            double[] y = new double[VariationalEphemerisSystem.STRIDE];
+            VariationalEphemerisSystem.initialise(y, 0, x);
 
-            SolarSystem system = new SolarSystem(masses); // unchanged SolarSystem
-            Vector y = new Vector(full);
+            EventLocator locator = new EventLocator(new RK4Solver(), EVENT_CONVERGENCE);
+            Encounters encounters = new Encounters(ephemeris, 1, VariationalEphemerisSystem.STRIDE, true);
+            encounters.register(locator);
+            VariationalEphemerisSystem system = new VariationalEphemerisSystem(ephemeris);
+            double[] next = new double[y.length];
+            double[] bodies = new double[3 * BASE_NUM_BODIES];
             double t = 0.0;
 
             while (t < ONE_YEAR_SECONDS) {
-                y = solver.step(system, t, y, DT);
-                t += DT;
+                t = locator.stepInto(system, t, y, DT, next);
+                double[] swap = y;
+                y = next;
+                next = swap;
+                if (encounters.collided(0)) return COLLISION_PENALTY;
+
+                ephemeris.positionsInto(t, bodies);
+                if (probeCollided(y, 0, bodies, VariationalEphemerisSystem.STRIDE)) return COLLISION_PENALTY;
+            }
+
+            // miss vector to Titan and its length
+            ephemeris.positionsInto(t, bodies);
+            double dx = y[0] - bodies[TITAN_BODY_INDEX * 3];
+            double dy = y[1] - bodies[TITAN_BODY_INDEX * 3 + 1];
+            double dz = y[2] - bodies[TITAN_BODY_INDEX * 3 + 2];
+            double d = Math.sqrt(dx*dx + dy*dy + dz*dz);
+            if (d == 0) return 0;
 
-                // if probe collides with any planet, heavy penalty
-                if (probeCollided(y)) return 1e12;
+            for (int k = 0; k < 6; k++) {
+                grad[k] = (dx * y[6 + k] + dy * y[12 + k] + dz * y[18 + k]) / d;
             }
+            return d;
+
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            Arrays.fill(grad, 0);
+            return COLLISION_PENALTY;
+        }
+    }
 
-            // compute probe final distance to Titan
-            double px = y.get(PROBE_INDEX * 6);
-            double py = y.get(PROBE_INDEX * 6 + 1);
-            double pz = y.get(PROBE_INDEX * 6 + 2);
+    /**
+     * Computes the cost of several probe starting states in a single integration
+     * against the cached planet ephemeris. Every probe is a massless test particle,
+     * so the probes do not disturb the planets or each other and each cost equals
+     * that of a separate run.
+     *
+     * @param probes Initial probe states [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @return Final distance of each probe to Titan in km, or a large penalty for
+     *         probes that collide.
+     */
+    private double[] evaluateCosts(double[][] probes) {
+        Evaluation[] evaluations = evaluateBatch(probes, null);
+        double[] costs = new double[probes.length];
+        for (int p = 0; p < costs.length; p++) {
+            costs[p] = evaluations[p].getCost();
+        }
+        return costs;
+    }
 
-            double tx = y.get(TITAN_BODY_INDEX * 6);
-            double ty = y.get(TITAN_BODY_INDEX * 6 + 1);
-            double tz = y.get(TITAN_BODY_INDEX * 6 + 2);
+    /**
+     * Evaluates a probe starting state. With pruning enabled, the integration is
+     * abandoned as soon as the probe is unlikely to end closer to Titan than a given
+     * bound; otherwise the bound is ignored and the exact cost is returned.
+     * <p>
+     * After every step the miss distance still to be made up is compared with the
+     * distance the probe and Titan could close in the remaining time, both moving
+     * head-on relative to the Sun. Titan's speed is taken as its maximum over the
+     * ephemeris. The probe's speed is estimated by the perihelion speed of its
+     * osculating orbit about the Sun plus one flyby allowance, the largest surface
+     * escape speed among the other bodies. This is a heuristic cutoff rather than a
+     * bound: the osculating orbit does not hold inside a planet's well, and a probe
+     * making several flybys can gain more than one allowance. A pruned probe that
+     * would have beaten the bound is therefore possible, if rare, which is why
+     * pruning is off unless enabled with {@link #setPruning(boolean)}.
+     *
+     * @param x     Initial probe state [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @param bound Miss distance to beat in km; {@link Double#POSITIVE_INFINITY} disables pruning.
+     * @return The evaluation; collisions and pruned probes are reported by their status.
+     */
+    public Evaluation evaluate(double[] x, double bound) {
+        double[] bounds = pruning ? new double[] { bound } : null;
+        return evaluateBatch(new double[][] { x }, bounds)[0];
+    }
+
+    /**
+     * Integrates a probe over the mission year and records its path, e.g. to draw it
+     * as a trail in the 3D viewer. The path ends at the collision if the probe collides.
+     *
+     * @param x Initial probe state [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @return The probe's states after every step, starting with x, as a one-body trajectory.
+     */
+    public Trajectory probeTrajectory(double[] x) {
+        Ephemeris ephemeris = EphemerisHolder.EPHEMERIS;
+        double[] y = x.clone();
+        Trajectory path = new Trajectory(1, 6);
+        path.append(0.0, y);
+
+        EventLocator locator = new EventLocator(new RK4Solver(), EVENT_CONVERGENCE);
+        Encounters encounters = new Encounters(ephemeris, 1, 6, true);
+        encounters.register(locator);
+        EphemerisSystem system = new EphemerisSystem(ephemeris);
+        double[] next = new double[6];
+        double[] bodies = new double[3 * BASE_NUM_BODIES];
+        double t = 0.0;
+
+        while (t < ONE_YEAR_SECONDS) {
+            t = locator.stepInto(system, t, y, DT, next);
+            double[] swap = y;
+            y = next;
+            next = swap;
+            path.append(t, y);
+
+            ephemeris.positionsInto(t, bodies);
+            if (encounters.collided(0) || probeCollided(y, 0, bodies, 6)) break;
+        }
+        return path;
+    }
+
+    /**
+     * Integrates several probes together as test particles, see
+     * {@link #evaluateCosts(double[][])}, pruning each against its own bound as in
+     * {@link #evaluate(double[], double)}. The integration stops once every probe has
+     * collided or been pruned.
+     *
+     * @param probes Initial probe states [rx, ry, rz, vx, vy, vz] in km and km/s.
+     * @param bounds Miss distance each probe has to beat, or null to never prune.
+     * @return The evaluation of each probe, in the same order.
+     */
+    private Evaluation[] evaluateBatch(double[][] probes, double[] bounds) {
+        int count = probes.length;
+        Evaluation[] evaluations = new Evaluation[count];
+        try {
+            // Compose the state of the probes alone; the planets come from the ephemeris
+            Ephemeris ephemeris = EphemerisHolder.EPHEMERIS;
+            double[] y = new double[6 * count];
+            for (int p = 0; p < count; p++) {
+                System.arraycopy(probes[p], 0, y, p * 6, 6);
+            }
+
+            EventLocator locator = new EventLocator(new RK4Solver(), EVENT_CONVERGENCE);
+            Encounters encounters = new Encounters(ephemeris, count, 6, false);
+            encounters.register(locator);
+            EphemerisSystem system = new EphemerisSystem(ephemeris);
+            double[] next = new double[y.length];
+            double[] bodies = new double[3 * BASE_NUM_BODIES];
+            double[] bodyStates = new double[6 * BASE_NUM_BODIES];
+            double sunTime = Double.NaN;
+            double muSun = ephemeris.getGravitationalParameter(0);
+            int alive = count;
+            double t = 0.0;
+
+            while (t < ONE_YEAR_SECONDS && alive > 0) {
+                t = locator.stepInto(system, t, y, DT, next);
+                double[] swap = y;
+                y = next;
+                next = swap;
+
+                // if a probe collides with any planet, heavy penalty; the others carry on
+                ephemeris.positionsInto(t, bodies);
+                double remaining = ONE_YEAR_SECONDS - t;
+                for (int p = 0; p < count; p++) {
+                    if (evaluations[p] != null) continue;
+                    double closest = encounters.closestToTitan(p, distanceToTitan(y, p, bodies));
+                    if (encounters.collided(p)) {
+                        evaluations[p] = new Evaluation(Evaluation.Status.COLLIDED, COLLISION_PENALTY,
+                                encounters.collisionTime(p), closest);
+                        alive--;
+                    } else if (probeCollided(y, p, bodies, 6)) {
+                        evaluations[p] = new Evaluation(Evaluation.Status.COLLIDED, COLLISION_PENALTY, t, closest);
+                        alive--;
+                    } else if (bounds != null && bounds[p] < Double.POSITIVE_INFINITY && remaining > 0) {
+                        if (sunTime != t) {
+                            ephemeris.stateInto(t, bodyStates);
+                            sunTime = t;
+                        }
+                        double closing = remaining * (estimateProbeSpeed(y, p, bodyStates, muSun)
+                                + EphemerisHolder.TITAN_MAX_SPEED);
+                        double estimate = distanceToTitan(y, p, bodies) - closing;
+                        if (estimate > bounds[p]) {
+                            evaluations[p] = new Evaluation(Evaluation.Status.PRUNED, estimate, t, closest);
+                            alive--;
+                        }
+                    }
+                }
+            }
 
-            double dx = px - tx;
-            double dy = py - ty;
-            double dz = pz - tz;
-            return Math.sqrt(dx*dx + dy*dy + dz*dz);
+            // compute each remaining probe's final distance to Titan
+            ephemeris.positionsInto(t, bodies);
+            for (int p = 0; p < count; p++) {
+                if (evaluations[p] == null) {
+                    double d = distanceToTitan(y, p, bodies);
+                    evaluations[p] = new Evaluation(Evaluation.Status.COMPLETED, d, t,
+                            encounters.closestToTitan(p, d));
+                }
+            }
+            return evaluations;
 
         } catch (Exception ex) {
             ex.printStackTrace();
-            return 1e12;
+            Arrays.fill(evaluations, new Evaluation(Evaluation.Status.COLLIDED, COLLISION_PENALTY, 0.0, Double.NaN));
+            return evaluations;
+        }
+    }
+
+    /**
+     * Distance of a probe to Titan.
+     *
+     * @param y      State vector of the probes.
+     * @param probe  Index of the probe in the state vector.
+     * @param bodies Positions of the base bodies, 3 values per body.
+     * @return Distance in km.
+     */
+    private static double distanceToTitan(double[] y, int probe, double[] bodies) {
+        double dx = y[probe * 6] - bodies[TITAN_BODY_INDEX * 3];
+        double dy = y[probe * 6 + 1] - bodies[TITAN_BODY_INDEX * 3 + 1];
+        double dz = y[probe * 6 + 2] - bodies[TITAN_BODY_INDEX * 3 + 2];
+        return Math.sqrt(dx*dx + dy*dy + dz*dz);
+    }
+
+    /**
+     * Estimate of a probe's highest future speed relative to the Sun: the perihelion
+     * speed μ(1 + e)/h of its osculating orbit about the Sun, which no point of that
+     * conic exceeds, plus the flyby allowance. Not a strict bound, see
+     * {@link #evaluate(double[], double)}.
+     *
+     * @param y      State vector of the probes.
+     * @param probe  Index of the probe in the state vector.
+     * @param bodies States of the base bodies, 6 values per body.
+     * @param muSun  Gravitational parameter of the Sun.
+     * @return Speed estimate in km/s, infinite for a purely radial orbit.
+     */
+    private static double estimateProbeSpeed(double[] y, int probe, double[] bodies, double muSun) {
+        int o = probe * 6;
+        double rx = y[o] - bodies[0], ry = y[o + 1] - bodies[1], rz = y[o + 2] - bodies[2];
+        double vx = y[o + 3] - bodies[3], vy = y[o + 4] - bodies[4], vz = y[o + 5] - bodies[5];
+        double r = Math.sqrt(rx*rx + ry*ry + rz*rz);
+        double v2 = vx*vx + vy*vy + vz*vz;
+
+        double hx = ry * vz - rz * vy;
+        double hy = rz * vx - rx * vz;
+        double hz = rx * vy - ry * vx;
+        double h = Math.sqrt(hx*hx + hy*hy + hz*hz);
+        if (h == 0) return Double.POSITIVE_INFINITY;
+
+        double energy = 0.5 * v2 - muSun / r;
+        double e = Math.sqrt(Math.max(0, 1 + 2 * energy * h * h / (muSun * muSun)));
+        return muSun * (1 + e) / h + FLYBY_ALLOWANCE;
+    }
+
+    /**
+     * Encounters of probes with the base bodies. Each probe–body pair has an event at
+     * the zero of the radial relative velocity (r - r_i)·(v - v_i) going from negative
+     * to positive, i.e. at its closest approach. A probe that is inside the body there
+     * has collided, even if it passed straight through between two steps. The
+     * approaches to Titan also give the closest distance to Titan along the way.
+     */
+    private static final class Encounters {
+
+        private final Ephemeris ephemeris;
+        private final int stride;
+        private final boolean stopOnCollision;
+        private final double[] bodies = new double[6 * BASE_NUM_BODIES];
+        private double bodyTime = Double.NaN;
+        private final double[] collisionTimes;
+        private final double[] closest;
+
+        /**
+         * @param ephemeris       trajectories of the base bodies
+         * @param count           number of probes
+         * @param stride          number of state values per probe
+         * @param stopOnCollision whether a collision is a terminal event
+         */
+        Encounters(Ephemeris ephemeris, int count, int stride, boolean stopOnCollision) {
+            this.ephemeris = ephemeris;
+            this.stride = stride;
+            this.stopOnCollision = stopOnCollision;
+            this.collisionTimes = new double[count];
+            this.closest = new double[count];
+            Arrays.fill(collisionTimes, Double.NaN);
+            Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        }
+
+        /** Adds an approach event for every probe and body. */
+        void register(EventLocator locator) {
+            for (int p = 0; p < collisionTimes.length; p++) {
+                for (int i = 0; i < BASE_NUM_BODIES; i++) {
+                    locator.addEvent(new Approach(p, i));
+                }
+            }
+        }
+
+        boolean collided(int probe) {
+            return !Double.isNaN(collisionTimes[probe]);
+        }
+
+        double collisionTime(int probe) {
+            return collisionTimes[probe];
+        }
+
+        /** Folds a sampled distance into the closest approach to Titan and returns it. */
+        double closestToTitan(int probe, double distance) {
+            closest[probe] = Math.min(closest[probe], distance);
+            return closest[probe];
+        }
+
+        private double[] bodiesAt(double t) {
+            if (t != bodyTime) {
+                ephemeris.stateInto(t, bodies);
+                bodyTime = t;
+            }
+            return bodies;
+        }
+
+        private final class Approach implements EventFunction {
+
+            private final int probe;
+            private final int body;
+
+            Approach(int probe, int body) {
+                this.probe = probe;
+                this.body = body;
+            }
+
+            @Override
+            public double g(double t, double[] y) {
+                double[] b = bodiesAt(t);
+                int o = probe * stride;
+                double dot = 0;
+                for (int k = 0; k < 3; k++) {
+                    dot += (y[o + k] - b[body * 6 + k]) * (y[o + 3 + k] - b[body * 6 + 3 + k]);
+                }
+                return dot;
+            }
+
+            @Override
+            public int getDirection() {
+                return 1;
+            }
+
+            @Override
+            public int getStateOffset() {
+                return probe * stride;
+            }
+
+            @Override
+            public int getStateLength() {
+                return 6;
+            }
+
+            @Override
+            public Action eventOccurred(double t, double[] y, boolean increasing) {
+                if (collided(probe)) return Action.CONTINUE;
+                double[] b = bodiesAt(t);
+                int o = probe * stride;
+                double d2 = 0;
+                for (int k = 0; k < 3; k++) {
+                    double d = y[o + k] - b[body * 6 + k];
+                    d2 += d * d;
+                }
+                double d = Math.sqrt(d2);
+                if (body == TITAN_BODY_INDEX) {
+                    closestToTitan(probe, d);
+                }
+                if (d < PLANET_RADII_KM[body]) {
+                    collisionTimes[probe] = t;
+                    return stopOnCollision ? Action.STOP : Action.CONTINUE;
+                }
+                return Action.CONTINUE;
+            }
         }
     }
 
     /**
-     * Checks whether the probe collides with any celestial body.
+     * Checks whether a probe collides with any celestial body.
      *
-     * @param y State vector of the system (all bodies).
+     * @param y      State vector of the probes.
+     * @param probe  Index of the probe in the state vector.
+     * @param bodies Positions of the base bodies, 3 values per body.
+     * @param stride Number of state values per probe.
      * @return true if the probe is inside any planet's radius; false otherwise.
      */
-    private boolean probeCollided(Vector y) {
-        double px = y.get(PROBE_INDEX * 6);
-        double py = y.get(PROBE_INDEX * 6 + 1);
-        double pz = y.get(PROBE_INDEX * 6 + 2);
+    private boolean probeCollided(double[] y, int probe, double[] bodies, int stride) {
+        double px = y[probe * stride];
+        double py = y[probe * stride + 1];
+        double pz = y[probe * stride + 2];
 
         for (int i = 0; i < PLANET_RADII_KM.length; i++) {
-            double bx = y.get(i * 6);
-            double by = y.get(i * 6 + 1);
-            double bz = y.get(i * 6 + 2);
+            double bx = bodies[i * 3];
+            double by = bodies[i * 3 + 1];
+            double bz = bodies[i * 3 + 2];
             double dx = px - bx;
             double dy = py - by;
             double dz = pz - bz;
@@ -272,9 +946,10 @@ public class ExploratoryMission {
      *   <li>φ (phi) is polar angle from z-axis, computed from a uniform v in [0,1].</li>
      * </ul>
      *
+     * @param rng Random stream to draw from.
      * @return Probe initial state [rx, ry, rz, vx, vy, vz].
      */
-    private double[] placeProbeOnEarthSurface() {
+    private double[] placeProbeOnEarthSurface(SplittableRandom rng) {
         int earthPosIndex = EARTH_BODY_INDEX * 6;
         double ex = INITIAL_STATE_KM[earthPosIndex];
         double ey = INITIAL_STATE_KM[earthPosIndex + 1];
@@ -361,9 +1036,10 @@ public class ExploratoryMission {
      * @param base      Base state [rx, ry, rz, vx, vy, vz].
      * @param posSpread Maximum position deviation in km.
      * @param velSpread Maximum velocity deviation in km/s.
+     * @param rng       Random stream to draw from.
      * @return Randomized state vector.
      */
-    private double[] randomizeAround(double[] base, double posSpread, double velSpread) {
+    private double[] randomizeAround(double[] base, double posSpread, double velSpread, SplittableRandom rng) {
         double[] out = base.clone();
         for (int i = 0; i < 3; i++) out[i] = base[i] + (rng.nextDouble() * 2 - 1) * posSpread;
         for (int i = 3; i < 6; i++) out[i] = base[i] + (rng.nextDouble() * 2 - 1) * velSpread;
@@ -373,10 +1049,12 @@ public class ExploratoryMission {
     /** Example main to run optimization. */
     public static void main(String[] args) {
         ExploratoryMission opt = new ExploratoryMission();
-        int epochs = 6;
-        int iters = 40;
+        int restarts = 4;
+        int budget = 1500;
 
-        double[] best = opt.optimize(epochs, iters);
-        System.out.println("Best initial probe state (rx,ry,rz,vx,vy,vz): " + Arrays.toString(best));
+        Optimizer cmaEs = new CmaEsOptimizer(defaultLaunchSteps(), budget, 1e-9);
+        OptimizationResult result = opt.optimize(cmaEs, restarts);
+        System.out.println("Best initial probe state (rx,ry,rz,vx,vy,vz): " + Arrays.toString(result.getPoint()));
+        System.out.println("Objective evaluations: " + result.getEvaluations());
     }
 }
@@ -0,0 +1,77 @@
+package io.github.rajveer.dragonfly.missions;
+
+import java.util.SplittableRandom;
+
+/**
+ * Projected gradient descent with a fixed learning rate per coordinate and a small
+ * uniform perturbation after every step to escape shallow local minima.
+ * <p>
+ * Each iteration costs one gradient evaluation. The run stops when the budget is
+ * spent or when the cost changes by less than the relative tolerance between two
+ * iterations.
+ */
+public class GradientDescentOptimizer implements Optimizer {
+
+    private final double[] learningRates;
+    private final double noise;
+    private final int maxEvaluations;
+    private final double tolerance;
+
+    /**
+     * Creates a gradient descent optimizer.
+     *
+     * @param learningRates  step per gradient unit, one per coordinate
+     * @param noise          half width of the uniform perturbation added after each step
+     * @param maxEvaluations maximum number of gradient evaluations
+     * @param tolerance      relative cost change below which the run has converged; 0 never converges
+     */
+    public GradientDescentOptimizer(double[] learningRates, double noise, int maxEvaluations, double tolerance) {
+        if (maxEvaluations < 1) {
+            throw new IllegalArgumentException("Evaluation budget must be positive: " + maxEvaluations);
+        }
+        this.learningRates = learningRates.clone();
+        this.noise = noise;
+        this.maxEvaluations = maxEvaluations;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public OptimizationResult minimize(Objective objective, double[] start, SplittableRandom rng) {
+        if (!objective.hasGradient()) {
+            throw new IllegalArgumentException("Gradient descent requires an objective with a gradient");
+        }
+        int n = objective.dimension();
+        if (learningRates.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " learning rates, got " + learningRates.length);
+        }
+
+        double[] x = start.clone();
+        objective.project(x);
+        double[] grad = new double[n];
+        double[] best = x.clone();
+        double bestCost = Double.POSITIVE_INFINITY;
+        double previous = Double.NaN;
+
+        for (int evaluations = 1; evaluations <= maxEvaluations; evaluations++) {
+            double cost = objective.evaluateWithGradient(x, grad);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = x.clone();
+            }
+            if (Math.abs(cost - previous) <= tolerance * Math.abs(cost)) {
+                return new OptimizationResult(best, bestCost, evaluations, true);
+            }
+            previous = cost;
+
+            for (int k = 0; k < n; k++) {
+                x[k] -= learningRates[k] * grad[k];
+            }
+            objective.project(x);
+
+            for (int k = 0; k < n; k++) {
+                x[k] += (rng.nextDouble() * 2 - 1) * noise;
+            }
+        }
+        return new OptimizationResult(best, bestCost, maxEvaluations, false);
+    }
+}
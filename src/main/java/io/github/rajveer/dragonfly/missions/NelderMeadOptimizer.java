@@ -0,0 +1,179 @@
+package io.github.rajveer.dragonfly.missions;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Nelder–Mead downhill simplex with the dimension-adaptive coefficients of Gao and
+ * Han, which keep the method effective beyond two or three variables.
+ * <p>
+ * The initial simplex spans one step per coordinate from the start and is
+ * evaluated in parallel, as are the vertices of a shrink. Every trial point is
+ * projected onto the feasible set before it is evaluated, and evaluated against the
+ * cost it has to beat, see {@link Objective#evaluate(double[], double)}: a reflection
+ * against the worst vertex, an expansion against the reflection and a contraction
+ * against the point it would replace. A cut-short evaluation reports a value
+ * above that cost, so it takes the branch of a losing trial; it is the same branch
+ * the exact one would take as long as the objective only cuts short points that
+ * really lose, which depends on the objective's cutoff.
+ * <p>
+ * The run stops when the budget is spent, or when the costs of all vertices lie
+ * within the relative tolerance of the best one and the simplex fits within the
+ * tolerance times the initial steps.
+ */
+public class NelderMeadOptimizer implements Optimizer {
+
+    private final double[] initialSteps;
+    private final int maxEvaluations;
+    private final double tolerance;
+
+    /**
+     * Creates a Nelder–Mead optimizer.
+     *
+     * @param initialSteps   edge length of the initial simplex per coordinate
+     * @param maxEvaluations maximum number of objective evaluations
+     * @param tolerance      relative tolerance on vertex costs and on simplex size
+     */
+    public NelderMeadOptimizer(double[] initialSteps, int maxEvaluations, double tolerance) {
+        if (maxEvaluations < 1) {
+            throw new IllegalArgumentException("Evaluation budget must be positive: " + maxEvaluations);
+        }
+        this.initialSteps = initialSteps.clone();
+        this.maxEvaluations = maxEvaluations;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public OptimizationResult minimize(Objective objective, double[] start, SplittableRandom rng) {
+        int n = objective.dimension();
+        if (initialSteps.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " initial steps, got " + initialSteps.length);
+        }
+
+        double alpha = 1;
+        double beta = 1 + 2.0 / n;
+        double gamma = 0.75 - 1.0 / (2 * n);
+        double delta = 1 - 1.0 / n;
+
+        double[][] simplex = new double[n + 1][];
+        for (int v = 0; v <= n; v++) {
+            simplex[v] = start.clone();
+            if (v > 0) simplex[v][v - 1] += initialSteps[v - 1];
+            objective.project(simplex[v]);
+        }
+        double[] costs = new double[n + 1];
+        objective.evaluateAll(simplex, costs);
+        int evaluations = n + 1;
+
+        double[] centroid = new double[n];
+        double[] reflected = new double[n];
+        double[] trial = new double[n];
+
+        while (true) {
+            sort(simplex, costs);
+            if (converged(simplex, costs)) {
+                return new OptimizationResult(simplex[0].clone(), costs[0], evaluations, true);
+            }
+            if (evaluations >= maxEvaluations) break;
+
+            Arrays.fill(centroid, 0);
+            for (int v = 0; v < n; v++) {
+                for (int i = 0; i < n; i++) {
+                    centroid[i] += simplex[v][i] / n;
+                }
+            }
+            double[] worst = simplex[n];
+
+            along(centroid, worst, alpha, reflected);
+            objective.project(reflected);
+            double fr = objective.evaluate(reflected, costs[n]);
+            evaluations++;
+
+            if (fr < costs[0]) {
+                along(centroid, worst, alpha * beta, trial);
+                objective.project(trial);
+                double fe = objective.evaluate(trial, fr);
+                evaluations++;
+                if (fe < fr) {
+                    replaceWorst(simplex, costs, trial, fe);
+                } else {
+                    replaceWorst(simplex, costs, reflected, fr);
+                }
+            } else if (fr < costs[n - 1]) {
+                replaceWorst(simplex, costs, reflected, fr);
+            } else {
+                // Outside contraction if the reflection improved on the worst, else inside
+                boolean outside = fr < costs[n];
+                along(centroid, worst, outside ? alpha * gamma : -gamma, trial);
+                objective.project(trial);
+                double target = outside ? fr : costs[n];
+                double fc = objective.evaluate(trial, target);
+                evaluations++;
+
+                if (fc < target) {
+                    replaceWorst(simplex, costs, trial, fc);
+                } else {
+                    // Shrink towards the best vertex
+                    double[][] moved = new double[n][];
+                    for (int v = 1; v <= n; v++) {
+                        for (int i = 0; i < n; i++) {
+                            simplex[v][i] = simplex[0][i] + delta * (simplex[v][i] - simplex[0][i]);
+                        }
+                        objective.project(simplex[v]);
+                        moved[v - 1] = simplex[v];
+                    }
+                    double[] movedCosts = new double[n];
+                    objective.evaluateAll(moved, movedCosts);
+                    System.arraycopy(movedCosts, 0, costs, 1, n);
+                    evaluations += n;
+                }
+            }
+        }
+
+        return new OptimizationResult(simplex[0].clone(), costs[0], evaluations, false);
+    }
+
+    /** Writes centroid + factor · (centroid − worst) into out. */
+    private static void along(double[] centroid, double[] worst, double factor, double[] out) {
+        for (int i = 0; i < centroid.length; i++) {
+            out[i] = centroid[i] + factor * (centroid[i] - worst[i]);
+        }
+    }
+
+    private static void replaceWorst(double[][] simplex, double[] costs, double[] point, double cost) {
+        int last = costs.length - 1;
+        System.arraycopy(point, 0, simplex[last], 0, point.length);
+        costs[last] = cost;
+    }
+
+    /** Orders the vertices by cost with an insertion sort, which suits nearly sorted input. */
+    private static void sort(double[][] simplex, double[] costs) {
+        for (int i = 1; i < costs.length; i++) {
+            double c = costs[i];
+            double[] v = simplex[i];
+            int j = i - 1;
+            while (j >= 0 && costs[j] > c) {
+                costs[j + 1] = costs[j];
+                simplex[j + 1] = simplex[j];
+                j--;
+            }
+            costs[j + 1] = c;
+            simplex[j + 1] = v;
+        }
+    }
+
+    private boolean converged(double[][] simplex, double[] costs) {
+        int n = costs.length - 1;
+        if (costs[n] - costs[0] > tolerance * Math.abs(costs[0])) {
+            return false;
+        }
+        for (int v = 1; v <= n; v++) {
+            for (int i = 0; i < n; i++) {
+                if (Math.abs(simplex[v][i] - simplex[0][i]) > tolerance * initialSteps[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.rajveer.dragonfly.missions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A cost function to be minimised by an {@link Optimizer}, together with the
+ * constraints of its search space.
+ * <p>
+ * Constraints are expressed as a projection that moves a point onto the feasible
+ * set; optimizers project every candidate before evaluating it. Implementations
+ * must be safe to call from several threads at once, since population-based
+ * optimizers evaluate candidates in parallel.
+ */
+public interface Objective {
+
+    /**
+     * Returns the number of variables.
+     *
+     * @return the dimension of the search space
+     */
+    int dimension();
+
+    /**
+     * Evaluates the cost of a feasible point.
+     *
+     * @param x the point
+     * @return the cost; lower is better
+     */
+    double evaluate(double[] x);
+
+    /**
+     * Evaluates the cost of a feasible point, possibly stopping early once the cost is
+     * expected to exceed a bound. Optimizers that only need to know whether a
+     * candidate beats a given cost pass that cost here. The default ignores the bound.
+     * <p>
+     * Cutting short is best effort: an implementation may stop on an estimate, so a
+     * cut-short point is reported as not beating the bound even if its exact cost
+     * would have. Implementations document how reliable their cutoff is.
+     *
+     * @param x     the point
+     * @param bound cost the point has to beat; {@link Double#POSITIVE_INFINITY} disables pruning
+     * @return the cost, or, if the evaluation was cut short, an estimate of it that is
+     *         greater than the bound
+     */
+    default double evaluate(double[] x, double bound) {
+        return evaluate(x);
+    }
+
+    /**
+     * Evaluates several points, writing their costs in order. The default runs one
+     * fork-join task per point; implementations may batch the work instead.
+     *
+     * @param xs    the points
+     * @param costs receives the cost of each point
+     */
+    default void evaluateAll(double[][] xs, double[] costs) {
+        List<RecursiveAction> tasks = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            int index = i;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    costs[index] = evaluate(xs[index]);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * Moves a point onto the feasible set in place. The default accepts every point.
+     *
+     * @param x the point to project
+     */
+    default void project(double[] x) {
+    }
+
+    /**
+     * Returns whether {@link #evaluateWithGradient(double[], double[])} is supported.
+     *
+     * @return true if gradients are available
+     */
+    default boolean hasGradient() {
+        return false;
+    }
+
+    /**
+     * Evaluates the cost of a point and its gradient.
+     *
+     * @param x    the point
+     * @param grad receives the gradient
+     * @return the cost
+     * @throws UnsupportedOperationException if the objective has no gradient
+     */
+    default double evaluateWithGradient(double[] x, double[] grad) {
+        throw new UnsupportedOperationException("Objective has no gradient");
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.rajveer.dragonfly.missions;
+
+/**
+ * Outcome of an {@link Optimizer} run.
+ */
+public final class OptimizationResult {
+
+    private final double[] point;
+    private final double cost;
+    private final int evaluations;
+    private final boolean converged;
+
+    /**
+     * Creates a result.
+     *
+     * @param point       the best point found
+     * @param cost        its cost
+     * @param evaluations number of objective evaluations spent
+     * @param converged   whether the convergence criterion was met before the budget ran out
+     */
+    public OptimizationResult(double[] point, double cost, int evaluations, boolean converged) {
+        this.point = point;
+        this.cost = cost;
+        this.evaluations = evaluations;
+        this.converged = converged;
+    }
+
+    /**
+     * Returns the best point found.
+     *
+     * @return a copy of the point
+     */
+    public double[] getPoint() {
+        return point.clone();
+    }
+
+    /**
+     * Returns the cost of the best point.
+     *
+     * @return the lowest cost seen
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns the number of objective evaluations spent.
+     *
+     * @return the evaluation count
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns whether the run stopped on its convergence criterion rather than on
+     * its budget.
+     *
+     * @return true if converged
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
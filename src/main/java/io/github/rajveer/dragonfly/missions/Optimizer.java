@@ -0,0 +1,23 @@
+package io.github.rajveer.dragonfly.missions;
+
+import java.util.SplittableRandom;
+
+/**
+ * A minimisation algorithm over a continuous {@link Objective}.
+ * <p>
+ * Implementations bound their work by an evaluation budget and stop early once
+ * their convergence criterion holds. Optimizer instances keep no state between
+ * runs, so one instance may run several restarts concurrently.
+ */
+public interface Optimizer {
+
+    /**
+     * Minimises an objective from a starting point.
+     *
+     * @param objective the cost function and its constraints
+     * @param start     the starting point; not modified
+     * @param rng       random stream for stochastic decisions
+     * @return the best point found
+     */
+    OptimizationResult minimize(Objective objective, double[] start, SplittableRandom rng);
+}
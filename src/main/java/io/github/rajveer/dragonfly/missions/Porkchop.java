@@ -0,0 +1,188 @@
+package io.github.rajveer.dragonfly.missions;
+
+import io.github.rajveer.dragonfly.systems.Ephemeris;
+import io.github.rajveer.dragonfly.utils.Lambert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Porkchop grid of Keplerian transfers between two bodies of an {@link Ephemeris}.
+ * <p>
+ * Every cell pairs a departure epoch with a time of flight and solves Lambert's
+ * problem around the central body from the departure body's position to the
+ * arrival body's position at arrival. The departure and arrival Δv are the
+ * velocity differences to the bodies at either end, i.e. the hyperbolic excess
+ * speeds. Cells without a solution, or arriving outside the ephemeris span, hold
+ * {@link Double#NaN}.
+ * <p>
+ * Rows of the grid are computed as independent fork-join tasks.
+ */
+public final class Porkchop {
+
+    private final double[] departures;
+    private final double[] flightTimes;
+    private final double[] departureDeltaV;
+    private final double[] arrivalDeltaV;
+    private final double[] departureVelocity;
+
+    private Porkchop(double[] departures, double[] flightTimes) {
+        this.departures = departures.clone();
+        this.flightTimes = flightTimes.clone();
+        int cells = departures.length * flightTimes.length;
+        this.departureDeltaV = new double[cells];
+        this.arrivalDeltaV = new double[cells];
+        this.departureVelocity = new double[3 * cells];
+    }
+
+    /**
+     * Computes a porkchop grid.
+     *
+     * @param ephemeris   trajectories of the bodies
+     * @param central     index of the central body, e.g. the Sun
+     * @param from        index of the departure body
+     * @param to          index of the arrival body
+     * @param prograde    whether to take the prograde or the retrograde transfers
+     * @param departures  departure epochs in seconds
+     * @param flightTimes times of flight in seconds, all positive
+     * @param pool        pool the rows run on
+     * @return the computed grid
+     */
+    public static Porkchop compute(Ephemeris ephemeris, int central, int from, int to, boolean prograde,
+                                   double[] departures, double[] flightTimes, ForkJoinPool pool) {
+        Porkchop grid = new Porkchop(departures, flightTimes);
+        double mu = ephemeris.getGravitationalParameter(central);
+
+        List<RecursiveAction> rows = new ArrayList<>(departures.length);
+        for (int i = 0; i < departures.length; i++) {
+            int row = i;
+            rows.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    grid.computeRow(ephemeris, mu, central, from, to, prograde, row);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(rows);
+            }
+        });
+        return grid;
+    }
+
+    private void computeRow(Ephemeris ephemeris, double mu, int central, int from, int to,
+                            boolean prograde, int row) {
+        double[] state = new double[6 * ephemeris.getNumBodies()];
+        double[] r1 = new double[3], r2 = new double[3];
+        double[] v1 = new double[3], v2 = new double[3];
+        double[] vFrom = new double[3];
+
+        double t0 = departures[row];
+        ephemeris.stateInto(t0, state);
+        for (int k = 0; k < 3; k++) {
+            r1[k] = state[6 * from + k] - state[6 * central + k];
+            vFrom[k] = state[6 * from + 3 + k] - state[6 * central + 3 + k];
+        }
+
+        for (int j = 0; j < flightTimes.length; j++) {
+            int cell = row * flightTimes.length + j;
+            double t1 = t0 + flightTimes[j];
+            departureDeltaV[cell] = Double.NaN;
+            arrivalDeltaV[cell] = Double.NaN;
+            if (t1 > ephemeris.getEndTime()) continue;
+
+            ephemeris.stateInto(t1, state);
+            for (int k = 0; k < 3; k++) {
+                r2[k] = state[6 * to + k] - state[6 * central + k];
+            }
+            if (!Lambert.solve(mu, r1, r2, flightTimes[j], prograde, v1, v2)) continue;
+
+            double dep = 0, arr = 0;
+            for (int k = 0; k < 3; k++) {
+                double d = v1[k] - vFrom[k];
+                double a = v2[k] - (state[6 * to + 3 + k] - state[6 * central + 3 + k]);
+                dep += d * d;
+                arr += a * a;
+                departureVelocity[3 * cell + k] = v1[k];
+            }
+            departureDeltaV[cell] = Math.sqrt(dep);
+            arrivalDeltaV[cell] = Math.sqrt(arr);
+        }
+    }
+
+    /**
+     * Returns the number of departure epochs, i.e. rows.
+     *
+     * @return the row count
+     */
+    public int getNumDepartures() {
+        return departures.length;
+    }
+
+    /**
+     * Returns the number of flight times, i.e. columns.
+     *
+     * @return the column count
+     */
+    public int getNumFlightTimes() {
+        return flightTimes.length;
+    }
+
+    /**
+     * Returns a departure epoch.
+     *
+     * @param row the row
+     * @return the departure time in seconds
+     */
+    public double getDeparture(int row) {
+        return departures[row];
+    }
+
+    /**
+     * Returns a time of flight.
+     *
+     * @param column the column
+     * @return the flight time in seconds
+     */
+    public double getFlightTime(int column) {
+        return flightTimes[column];
+    }
+
+    /**
+     * Returns the hyperbolic excess speed at departure of a cell.
+     *
+     * @param row    the departure row
+     * @param column the flight-time column
+     * @return Δv relative to the departure body in km/s, or NaN if the cell has no transfer
+     */
+    public double getDepartureDeltaV(int row, int column) {
+        return departureDeltaV[row * flightTimes.length + column];
+    }
+
+    /**
+     * Returns the hyperbolic excess speed at arrival of a cell.
+     *
+     * @param row    the departure row
+     * @param column the flight-time column
+     * @return Δv relative to the arrival body in km/s, or NaN if the cell has no transfer
+     */
+    public double getArrivalDeltaV(int row, int column) {
+        return arrivalDeltaV[row * flightTimes.length + column];
+    }
+
+    /**
+     * Copies the transfer's departure velocity relative to the central body.
+     *
+     * @param row    the departure row
+     * @param column the flight-time column
+     * @param out    receives the velocity (vx, vy, vz) in km/s
+     */
+    public void departureVelocityInto(int row, int column, double[] out) {
+        System.arraycopy(departureVelocity, 3 * (row * flightTimes.length + column), out, 0, 3);
+    }
+}
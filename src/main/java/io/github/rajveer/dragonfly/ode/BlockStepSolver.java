@@ -0,0 +1,321 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.GravitySystem;
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.Arrays;
+
+/**
+ * 4th-order Hermite N-body integrator with hierarchical block time steps.
+ * <p>
+ * Every body advances with its own step dt / 2^k, chosen from its acceleration and
+ * its derivatives with Aarseth's criterion. At each block time only the bodies due
+ * for an update are "active": their forces are evaluated against the predicted
+ * positions of all other bodies and then corrected with the Hermite scheme. A
+ * fast inner satellite thus no longer forces the outer planets onto its step.
+ * <p>
+ * A call to {@link #step} advances the whole system by {@code dt}, the largest
+ * allowed block step, after which all bodies are synchronised again. Per-body steps,
+ * accelerations and jerks carry over to the next call when it continues from the
+ * previous result. The system must be a {@link GravitySystem}.
+ */
+public class BlockStepSolver implements ODESolver {
+
+    /** Default accuracy parameter of the Aarseth step criterion. */
+    public static final double DEFAULT_ETA = 0.01;
+
+    /** Deepest step level, i.e. the smallest step is dt / 2^MAX_LEVEL. */
+    private static final int MAX_LEVEL = 40;
+
+    private final double eta;
+
+    private int bodies;
+    /** Number of massive bodies; test particles after them exert no force. */
+    private int sources;
+    private double[] x, v, a, j;
+    private double[] xp, vp;
+    private double[] a1 = new double[3], j1 = new double[3];
+    private double[] bodyTime;
+    private int[] level;
+    private double[] gm;
+    private boolean[] fixed;
+
+    private int[] active = new int[0];
+    private double[] newX, newV, newA, newJ;
+
+    private ODESystem lastSystem;
+    private double lastTime = Double.NaN;
+    private double lastDt = Double.NaN;
+    private double[] lastState = new double[0];
+
+    private long bodyEvaluations;
+
+    /**
+     * Constructs a block step solver with the default accuracy parameter.
+     */
+    public BlockStepSolver() {
+        this(DEFAULT_ETA);
+    }
+
+    /**
+     * Constructs a block step solver.
+     *
+     * @param eta accuracy parameter of the Aarseth criterion; smaller is more accurate
+     */
+    public BlockStepSolver(double eta) {
+        if (eta <= 0) {
+            throw new IllegalArgumentException("Accuracy parameter must be positive: " + eta);
+        }
+        this.eta = eta;
+    }
+
+    /**
+     * Returns the number of single-body force evaluations so far. A shared step
+     * would cost N per step; here only active bodies are counted.
+     *
+     * @return the number of body force evaluations
+     */
+    public long getBodyEvaluations() {
+        return bodyEvaluations;
+    }
+
+    /**
+     * Returns the current step level of a body; its step is dt / 2^level.
+     *
+     * @param body the body index
+     * @return the step level
+     */
+    public int getLevel(int body) {
+        return level[body];
+    }
+
+    @Override
+    public Vector step(ODESystem system, double t, Vector y, double dt) {
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        if (!(system instanceof GravitySystem gravity)) {
+            throw new IllegalArgumentException("Block time steps require a GravitySystem");
+        }
+        if (dt <= 0) {
+            throw new IllegalArgumentException("Block step must be positive: " + dt);
+        }
+
+        int n = y.length;
+        boolean continued = system == lastSystem && t == lastTime && dt == lastDt
+                && lastState.length == n && Arrays.equals(y, lastState);
+        if (!continued) {
+            initialise(gravity, y, dt);
+        }
+
+        // Body times are kept relative to the start of this call, in [0, dt]
+        Arrays.fill(bodyTime, 0);
+        double time = 0;
+        while (time < dt) {
+            double next = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < bodies; i++) {
+                if (fixed[i]) continue;
+                next = Math.min(next, bodyTime[i] + stepOf(i, dt));
+            }
+            if (next == Double.POSITIVE_INFINITY) {
+                break; // Nothing can move
+            }
+
+            int count = 0;
+            for (int i = 0; i < bodies; i++) {
+                if (!fixed[i] && bodyTime[i] + stepOf(i, dt) == next) {
+                    active[count++] = i;
+                }
+            }
+
+            predictAll(next);
+            for (int k = 0; k < count; k++) {
+                correct(active[k], next, dt);
+            }
+            for (int k = 0; k < count; k++) {
+                commit(active[k], next);
+            }
+            time = next;
+        }
+
+        for (int i = 0; i < bodies; i++) {
+            for (int c = 0; c < 3; c++) {
+                out[6 * i + c] = x[3 * i + c];
+                out[6 * i + 3 + c] = v[3 * i + c];
+            }
+        }
+
+        lastSystem = system;
+        lastTime = t + dt;
+        lastDt = dt;
+        if (lastState.length != n) {
+            lastState = new double[n];
+        }
+        System.arraycopy(out, 0, lastState, 0, n);
+    }
+
+    private double stepOf(int body, double dt) {
+        return Math.scalb(dt, -level[body]);
+    }
+
+    /** Loads the state, computes initial accelerations and jerks and assigns levels. */
+    private void initialise(GravitySystem system, double[] y, double dt) {
+        bodies = y.length / 6;
+        sources = system.getNumMassive();
+        int dim = 3 * bodies;
+        x = new double[dim];
+        v = new double[dim];
+        a = new double[dim];
+        j = new double[dim];
+        xp = new double[dim];
+        vp = new double[dim];
+        newX = new double[dim];
+        newV = new double[dim];
+        newA = new double[dim];
+        newJ = new double[dim];
+        bodyTime = new double[bodies];
+        level = new int[bodies];
+        active = new int[bodies];
+        gm = new double[bodies];
+        fixed = new boolean[bodies];
+
+        for (int i = 0; i < bodies; i++) {
+            gm[i] = system.getGravitationalParameter(i);
+            fixed[i] = system.isBodyFixed(i);
+            for (int c = 0; c < 3; c++) {
+                x[3 * i + c] = y[6 * i + c];
+                v[3 * i + c] = y[6 * i + 3 + c];
+            }
+        }
+        System.arraycopy(x, 0, xp, 0, dim);
+        System.arraycopy(v, 0, vp, 0, dim);
+
+        for (int i = 0; i < bodies; i++) {
+            if (fixed[i]) continue;
+            forceOn(i);
+            System.arraycopy(a1, 0, a, 3 * i, 3);
+            System.arraycopy(j1, 0, j, 3 * i, 3);
+
+            // Conservative start: a small fraction of the acceleration timescale
+            double an = norm(a, 3 * i), jn = norm(j, 3 * i);
+            double initial = jn == 0 ? dt : 0.1 * eta * an / jn;
+            level[i] = levelFor(initial, dt);
+        }
+    }
+
+    /** Predicts every body to time {@code target} from its own time with a Taylor series. */
+    private void predictAll(double target) {
+        for (int i = 0; i < bodies; i++) {
+            if (fixed[i]) continue;
+            double tau = target - bodyTime[i];
+            for (int c = 0; c < 3; c++) {
+                int k = 3 * i + c;
+                xp[k] = x[k] + tau * (v[k] + tau * (a[k] / 2 + tau * j[k] / 6));
+                vp[k] = v[k] + tau * (a[k] + tau * j[k] / 2);
+            }
+        }
+    }
+
+    /** Evaluates the force on an active body and applies the Hermite corrector. */
+    private void correct(int i, double target, double dt) {
+        forceOn(i);
+
+        double h = target - bodyTime[i];
+        double h2 = h * h, h3 = h2 * h;
+        double snapSq = 0, crackleSq = 0;
+        for (int c = 0; c < 3; c++) {
+            int k = 3 * i + c;
+            double snap = (-6 * (a[k] - a1[c]) - h * (4 * j[k] + 2 * j1[c])) / h2;
+            double crackle = (12 * (a[k] - a1[c]) + 6 * h * (j[k] + j1[c])) / h3;
+
+            newX[k] = xp[k] + h2 * h2 * (snap / 24 + h * crackle / 120);
+            newV[k] = vp[k] + h3 * (snap / 6 + h * crackle / 24);
+            newA[k] = a1[c];
+            newJ[k] = j1[c];
+
+            // Derivatives at the end of the step for the next step size
+            double snapEnd = snap + h * crackle;
+            snapSq += snapEnd * snapEnd;
+            crackleSq += crackle * crackle;
+        }
+
+        double an = norm(a1, 0), jn = norm(j1, 0);
+        double sn = Math.sqrt(snapSq), cn = Math.sqrt(crackleSq);
+        double denominator = jn * cn + sn * sn;
+        double wanted = denominator == 0 ? dt : Math.sqrt(eta * (an * sn + jn * jn) / denominator);
+
+        // Shrink freely; grow by at most one level, and only on an aligned block boundary
+        int current = level[i];
+        int desired = levelFor(wanted, dt);
+        if (desired > current) {
+            level[i] = desired;
+        } else if (desired < current && current > 0) {
+            double parent = Math.scalb(dt, -(current - 1));
+            if (Math.IEEEremainder(target, parent) == 0) {
+                level[i] = current - 1;
+            }
+        }
+    }
+
+    private void commit(int i, double target) {
+        System.arraycopy(newX, 3 * i, x, 3 * i, 3);
+        System.arraycopy(newV, 3 * i, v, 3 * i, 3);
+        System.arraycopy(newA, 3 * i, a, 3 * i, 3);
+        System.arraycopy(newJ, 3 * i, j, 3 * i, 3);
+        bodyTime[i] = target;
+    }
+
+    /** Computes acceleration and jerk of body i from the predicted state into a1, j1. */
+    private void forceOn(int i) {
+        double ax = 0, ay = 0, az = 0, jx = 0, jy = 0, jz = 0;
+        double xi = xp[3 * i], yi = xp[3 * i + 1], zi = xp[3 * i + 2];
+        double vxi = vp[3 * i], vyi = vp[3 * i + 1], vzi = vp[3 * i + 2];
+
+        for (int k = 0; k < sources; k++) {
+            if (k == i || gm[k] == 0) continue;
+            double dx = xp[3 * k] - xi, dy = xp[3 * k + 1] - yi, dz = xp[3 * k + 2] - zi;
+            double dvx = vp[3 * k] - vxi, dvy = vp[3 * k + 1] - vyi, dvz = vp[3 * k + 2] - vzi;
+            double r2 = dx * dx + dy * dy + dz * dz;
+            if (r2 == 0) continue;
+
+            double inv3 = gm[k] / (r2 * Math.sqrt(r2));
+            double rv = 3 * (dx * dvx + dy * dvy + dz * dvz) / r2;
+            ax += dx * inv3;
+            ay += dy * inv3;
+            az += dz * inv3;
+            jx += (dvx - rv * dx) * inv3;
+            jy += (dvy - rv * dy) * inv3;
+            jz += (dvz - rv * dz) * inv3;
+        }
+
+        a1[0] = ax;
+        a1[1] = ay;
+        a1[2] = az;
+        j1[0] = jx;
+        j1[1] = jy;
+        j1[2] = jz;
+        bodyEvaluations++;
+    }
+
+    /** Smallest level whose step dt / 2^level does not exceed {@code wanted}. */
+    private static int levelFor(double wanted, double dt) {
+        if (!(wanted > 0)) {
+            return MAX_LEVEL;
+        }
+        int level = 0;
+        while (level < MAX_LEVEL && Math.scalb(dt, -level) > wanted) {
+            level++;
+        }
+        return level;
+    }
+
+    private static double norm(double[] vec, int offset) {
+        double sx = vec[offset], sy = vec[offset + 1], sz = vec[offset + 2];
+        return Math.sqrt(sx * sx + sy * sy + sz * sz);
+    }
+}
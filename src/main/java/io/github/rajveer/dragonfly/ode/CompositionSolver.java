@@ -0,0 +1,151 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.systems.SeparableSystem;
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Symplectic integrators for separable systems, built by composing kick-drift-kick
+ * leapfrog steps with fixed weights.
+ * <p>
+ * Unlike {@link RK4Solver} these methods preserve the phase-space structure, so the
+ * energy error stays bounded over arbitrarily long runs instead of drifting. Use
+ * {@link #leapfrog()} (2nd order, one force evaluation per step),
+ * {@link #yoshida4()} (4th order, 3 evaluations) or {@link #yoshida6()} (6th order,
+ * 7 evaluations).
+ * <p>
+ * Adjacent half kicks of consecutive substeps are merged, and the acceleration at
+ * the end of a step is reused by the next call when it continues from that state.
+ * The system must implement {@link SeparableSystem}.
+ */
+public class CompositionSolver implements ODESolver {
+
+    private static final double CBRT2 = Math.cbrt(2);
+    private static final double YOSHIDA4_W1 = 1 / (2 - CBRT2);
+    private static final double YOSHIDA4_W0 = -CBRT2 * YOSHIDA4_W1;
+
+    // Yoshida (1990), 6th order solution A
+    private static final double YOSHIDA6_W1 = -1.17767998417887;
+    private static final double YOSHIDA6_W2 = 0.235573213359357;
+    private static final double YOSHIDA6_W3 = 0.784513610477560;
+    private static final double YOSHIDA6_W0 = 1 - 2 * (YOSHIDA6_W1 + YOSHIDA6_W2 + YOSHIDA6_W3);
+
+    /** Fractions of dt taken by each leapfrog substep. */
+    private final double[] weights;
+
+    private double[] acc = new double[0];
+    private double[] state = new double[0];
+
+    /** System and time at the end of the last call, for reusing the final acceleration. */
+    private ODESystem lastSystem;
+    private double lastTime = Double.NaN;
+
+    /**
+     * Constructs a composition of leapfrog substeps.
+     *
+     * @param weights fractions of the step taken by each substep; must sum to 1
+     */
+    public CompositionSolver(double... weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one substep weight is required");
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Kick-drift-kick leapfrog (Störmer–Verlet), 2nd order.
+     *
+     * @return a new leapfrog solver
+     */
+    public static CompositionSolver leapfrog() {
+        return new CompositionSolver(1.0);
+    }
+
+    /**
+     * Yoshida's 4th-order triple-jump composition.
+     *
+     * @return a new 4th-order solver
+     */
+    public static CompositionSolver yoshida4() {
+        return new CompositionSolver(YOSHIDA4_W1, YOSHIDA4_W0, YOSHIDA4_W1);
+    }
+
+    /**
+     * Yoshida's 6th-order composition with 7 substeps.
+     *
+     * @return a new 6th-order solver
+     */
+    public static CompositionSolver yoshida6() {
+        return new CompositionSolver(YOSHIDA6_W3, YOSHIDA6_W2, YOSHIDA6_W1, YOSHIDA6_W0,
+                YOSHIDA6_W1, YOSHIDA6_W2, YOSHIDA6_W3);
+    }
+
+    @Override
+    public Vector step(ODESystem system, double t, Vector y, double dt) {
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        SeparableSystem separable = requireSeparable(system);
+        int n = y.length;
+        boolean continued = system == lastSystem && t == lastTime
+                && state.length == n && Arrays.equals(y, state);
+        if (state.length != n) {
+            state = new double[n];
+            acc = new double[n / 2];
+        }
+        System.arraycopy(y, 0, state, 0, n);
+
+        if (!continued) {
+            separable.computeAccelerationInto(t, state, acc);
+        }
+
+        double time = t;
+        double kick = 0.5 * weights[0] * dt;
+        for (int s = 0; s < weights.length; s++) {
+            double h = weights[s] * dt;
+            kick(kick);
+            drift(separable, h);
+            time += h;
+            separable.computeAccelerationInto(time, state, acc);
+            kick = s + 1 < weights.length ? 0.5 * (h + weights[s + 1] * dt) : 0.5 * h;
+        }
+        kick(kick);
+
+        lastSystem = system;
+        lastTime = t + dt;
+        System.arraycopy(state, 0, out, 0, n);
+    }
+
+    private void kick(double h) {
+        int bodies = state.length / 6;
+        for (int i = 0; i < bodies; i++) {
+            state[6 * i + 3] += h * acc[3 * i];
+            state[6 * i + 4] += h * acc[3 * i + 1];
+            state[6 * i + 5] += h * acc[3 * i + 2];
+        }
+    }
+
+    private void drift(SeparableSystem system, double h) {
+        int bodies = state.length / 6;
+        for (int i = 0; i < bodies; i++) {
+            if (system.isBodyFixed(i)) continue;
+            state[6 * i] += h * state[6 * i + 3];
+            state[6 * i + 1] += h * state[6 * i + 4];
+            state[6 * i + 2] += h * state[6 * i + 5];
+        }
+    }
+
+    static SeparableSystem requireSeparable(ODESystem system) {
+        if (!(system instanceof SeparableSystem separable)) {
+            throw new IllegalArgumentException("Symplectic solvers require a SeparableSystem, got "
+                    + system.getClass().getSimpleName());
+        }
+        return separable;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.rajveer.dragonfly.ode;
+
+/**
+ * Continuous approximation of the solution over the most recently accepted step
+ * of an adaptive solver.
+ */
+public interface DenseOutput {
+
+    /**
+     * Returns the start time of the step covered by this output.
+     *
+     * @return the time at the beginning of the last accepted step
+     */
+    double getStepStart();
+
+    /**
+     * Returns the end time of the step covered by this output.
+     *
+     * @return the time at the end of the last accepted step
+     */
+    double getStepEnd();
+
+    /**
+     * Interpolates the state at time {@code t} within the last accepted step.
+     *
+     * @param t   a time between {@link #getStepStart()} and {@link #getStepEnd()}
+     * @param out receives the interpolated state
+     */
+    void interpolate(double t, double[] out);
+}
@@ -0,0 +1,353 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive Dormand–Prince RK5(4) solver with dense output.
+ * <p>
+ * Each call to {@link #step} advances the solution by exactly {@code dt}, taking as
+ * many internal steps as the tolerances require. The internal step size is chosen
+ * from the embedded 4th-order error estimate with a PI controller and carried over
+ * to the next call, so a caller sampling at a fixed interval (e.g. one day) gets
+ * small steps near close approaches and long ones in smooth stretches.
+ * <p>
+ * The last stage of an accepted step is the first stage of the next (FSAL), also
+ * across consecutive calls that continue from the previous result. After every
+ * accepted step a registered {@link StepListener} can sample the continuous
+ * 5th-order interpolant through {@link DenseOutput}.
+ * <p>
+ * Workspaces and controller state are per instance, so a solver must not be
+ * shared between threads.
+ */
+public class DormandPrinceSolver implements ODESolver, DenseOutput {
+
+    // Butcher tableau (Hairer & Wanner, DOPRI5)
+    private static final double C2 = 1.0 / 5, C3 = 3.0 / 10, C4 = 4.0 / 5, C5 = 8.0 / 9;
+    private static final double A21 = 1.0 / 5;
+    private static final double A31 = 3.0 / 40, A32 = 9.0 / 40;
+    private static final double A41 = 44.0 / 45, A42 = -56.0 / 15, A43 = 32.0 / 9;
+    private static final double A51 = 19372.0 / 6561, A52 = -25360.0 / 2187, A53 = 64448.0 / 6561,
+            A54 = -212.0 / 729;
+    private static final double A61 = 9017.0 / 3168, A62 = -355.0 / 33, A63 = 46732.0 / 5247,
+            A64 = 49.0 / 176, A65 = -5103.0 / 18656;
+    private static final double A71 = 35.0 / 384, A73 = 500.0 / 1113, A74 = 125.0 / 192,
+            A75 = -2187.0 / 6784, A76 = 11.0 / 84;
+
+    // Difference between the 5th and embedded 4th order weights
+    private static final double E1 = 71.0 / 57600, E3 = -71.0 / 16695, E4 = 71.0 / 1920,
+            E5 = -17253.0 / 339200, E6 = 22.0 / 525, E7 = -1.0 / 40;
+
+    // Dense output weights
+    private static final double D1 = -12715105075.0 / 11282082432.0, D3 = 87487479700.0 / 32700410799.0,
+            D4 = -10690763975.0 / 1880347072.0, D5 = 701980252875.0 / 199316789632.0,
+            D6 = -1453857185.0 / 822651844.0, D7 = 69997945.0 / 29380423.0;
+
+    // PI step size controller
+    private static final double SAFETY = 0.9;
+    private static final double BETA = 0.04;
+    private static final double EXPONENT = 0.2 - BETA * 0.75;
+    private static final double MIN_SCALE = 0.2;
+    private static final double MAX_SCALE = 10.0;
+
+    private final double absTol;
+    private final double relTol;
+
+    private StepListener listener;
+
+    /** Suggested size of the next internal step, 0 until the first step is taken. */
+    private double h;
+    /** Error of the previous accepted step, for the PI controller. */
+    private double errOld = 1e-4;
+
+    private double[] k1 = new double[0], k2, k3, k4, k5, k6, k7;
+    private double[] yCur, yStage, yNew;
+    private double[] r1, r2, r3, r4, r5;
+
+    /** State and system at the end of the last call, for FSAL reuse across calls. */
+    private ODESystem lastSystem;
+    private double lastTime = Double.NaN;
+
+    private double stepStart, stepEnd;
+
+    private long evaluations, accepted, rejected;
+
+    /**
+     * Constructs a solver with the given tolerances.
+     *
+     * @param absTol absolute error tolerance per component
+     * @param relTol relative error tolerance per component
+     */
+    public DormandPrinceSolver(double absTol, double relTol) {
+        if (absTol <= 0 && relTol <= 0) {
+            throw new IllegalArgumentException("At least one tolerance must be positive");
+        }
+        this.absTol = absTol;
+        this.relTol = relTol;
+    }
+
+    /**
+     * Registers a listener notified after every accepted internal step.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setStepListener(StepListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the internal step size the controller will try next.
+     *
+     * @return the suggested step size, 0 before the first step
+     */
+    public double getSuggestedStep() {
+        return h;
+    }
+
+    /** @return number of derivative evaluations so far */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /** @return number of accepted internal steps so far */
+    public long getAcceptedSteps() {
+        return accepted;
+    }
+
+    /** @return number of rejected internal steps so far */
+    public long getRejectedSteps() {
+        return rejected;
+    }
+
+    @Override
+    public Vector step(ODESystem system, double t, Vector y, double dt) {
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    /**
+     * Advances the state from {@code t} to exactly {@code t + dt} with adaptive
+     * internal steps.
+     *
+     * @param system the ODE system
+     * @param t current time
+     * @param y current state
+     * @param dt interval to advance; may be negative
+     * @param out receives the state at t + dt; may alias {@code y}
+     */
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        int n = y.length;
+        if (dt == 0) {
+            // Leaves the FSAL state alone, so it still matches only the state it belongs to
+            System.arraycopy(y, 0, out, 0, n);
+            return;
+        }
+
+        boolean continued = system == lastSystem && t == lastTime
+                && k1.length == n && Arrays.equals(y, yCur);
+        ensureCapacity(n);
+        System.arraycopy(y, 0, yCur, 0, n);
+
+        if (!continued) {
+            system.computeDerivativeInto(t, yCur, k1);
+            evaluations++;
+        }
+
+        double direction = Math.signum(dt);
+        double tEnd = t + dt;
+        if (h == 0 || !continued) {
+            h = initialStep(system, t, direction);
+        }
+
+        double time = t;
+        boolean lastStep = false;
+        while (!lastStep) {
+            // A remainder of a few ulps is rounding in the step sum, not a step to take
+            double minStep = Math.ulp(Math.max(Math.abs(time), Math.abs(tEnd))) * 16;
+            if (Math.abs(tEnd - time) <= minStep) {
+                break;
+            }
+
+            // Stretch a step that would stop just short of tEnd instead of leaving a sliver
+            double hStep = Math.abs(h) * direction;
+            if ((time + 1.01 * hStep - tEnd) * direction >= 0) {
+                hStep = tEnd - time;
+                lastStep = true;
+            }
+            if (Math.abs(hStep) <= minStep) {
+                throw new IllegalStateException("Step size underflow at t = " + time);
+            }
+
+            double err = attempt(system, time, hStep);
+            if (err <= 1.0) {
+                double scale = Math.pow(err, EXPONENT) / Math.pow(errOld, BETA);
+                scale = Math.max(1 / MAX_SCALE, Math.min(1 / MIN_SCALE, scale / SAFETY));
+                errOld = Math.max(err, 1e-4);
+
+                prepareDenseOutput(hStep, n);
+                stepStart = time;
+                stepEnd = lastStep ? tEnd : time + hStep;
+                time = stepEnd;
+
+                // FSAL: the last stage is the derivative at the new state
+                double[] swap = yCur;
+                yCur = yNew;
+                yNew = swap;
+                swap = k1;
+                k1 = k7;
+                k7 = swap;
+                accepted++;
+
+                if (listener != null) {
+                    listener.onStep(this);
+                }
+
+                // A step shortened to hit tEnd must not shrink the next suggestion
+                if (!lastStep || Math.abs(hStep) / scale > Math.abs(h)) {
+                    h = Math.abs(hStep) / scale;
+                }
+            } else {
+                double scale = Math.min(1 / MIN_SCALE, Math.pow(err, EXPONENT) / SAFETY);
+                h = Math.abs(hStep) / scale;
+                lastStep = false;
+                rejected++;
+            }
+        }
+
+        lastSystem = system;
+        lastTime = tEnd;
+        System.arraycopy(yCur, 0, out, 0, n);
+    }
+
+    /**
+     * Computes the stages of one step from {@code yCur} into {@code yNew} and
+     * returns the scaled RMS error estimate.
+     */
+    private double attempt(ODESystem system, double t, double hs) {
+        int n = yCur.length;
+        double[] y = yCur;
+
+        for (int i = 0; i < n; i++) yStage[i] = y[i] + hs * A21 * k1[i];
+        system.computeDerivativeInto(t + C2 * hs, yStage, k2);
+
+        for (int i = 0; i < n; i++) yStage[i] = y[i] + hs * (A31 * k1[i] + A32 * k2[i]);
+        system.computeDerivativeInto(t + C3 * hs, yStage, k3);
+
+        for (int i = 0; i < n; i++) yStage[i] = y[i] + hs * (A41 * k1[i] + A42 * k2[i] + A43 * k3[i]);
+        system.computeDerivativeInto(t + C4 * hs, yStage, k4);
+
+        for (int i = 0; i < n; i++) {
+            yStage[i] = y[i] + hs * (A51 * k1[i] + A52 * k2[i] + A53 * k3[i] + A54 * k4[i]);
+        }
+        system.computeDerivativeInto(t + C5 * hs, yStage, k5);
+
+        for (int i = 0; i < n; i++) {
+            yStage[i] = y[i] + hs * (A61 * k1[i] + A62 * k2[i] + A63 * k3[i] + A64 * k4[i] + A65 * k5[i]);
+        }
+        system.computeDerivativeInto(t + hs, yStage, k6);
+
+        for (int i = 0; i < n; i++) {
+            yNew[i] = y[i] + hs * (A71 * k1[i] + A73 * k3[i] + A74 * k4[i] + A75 * k5[i] + A76 * k6[i]);
+        }
+        system.computeDerivativeInto(t + hs, yNew, k7);
+        evaluations += 6;
+
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            double e = hs * (E1 * k1[i] + E3 * k3[i] + E4 * k4[i] + E5 * k5[i] + E6 * k6[i] + E7 * k7[i]);
+            double sk = absTol + relTol * Math.max(Math.abs(y[i]), Math.abs(yNew[i]));
+            sum += (e / sk) * (e / sk);
+        }
+        return Math.sqrt(sum / n);
+    }
+
+    /** Stores the interpolation coefficients of the step from {@code yCur} to {@code yNew}. */
+    private void prepareDenseOutput(double hs, int n) {
+        for (int i = 0; i < n; i++) {
+            double diff = yNew[i] - yCur[i];
+            double bspl = hs * k1[i] - diff;
+            r1[i] = yCur[i];
+            r2[i] = diff;
+            r3[i] = bspl;
+            r4[i] = diff - hs * k7[i] - bspl;
+            r5[i] = hs * (D1 * k1[i] + D3 * k3[i] + D4 * k4[i] + D5 * k5[i] + D6 * k6[i] + D7 * k7[i]);
+        }
+    }
+
+    @Override
+    public double getStepStart() {
+        return stepStart;
+    }
+
+    @Override
+    public double getStepEnd() {
+        return stepEnd;
+    }
+
+    @Override
+    public void interpolate(double t, double[] out) {
+        double span = stepEnd - stepStart;
+        double theta = span == 0 ? 1 : (t - stepStart) / span;
+        double theta1 = 1 - theta;
+        for (int i = 0; i < out.length; i++) {
+            out[i] = r1[i] + theta * (r2[i] + theta1 * (r3[i] + theta * (r4[i] + theta1 * r5[i])));
+        }
+    }
+
+    /**
+     * Chooses a first step size from the scaled magnitudes of the state and its
+     * derivative (Hairer, Nørsett &amp; Wanner, II.4).
+     */
+    private double initialStep(ODESystem system, double t, double direction) {
+        int n = yCur.length;
+        double d0 = 0, d1 = 0;
+        for (int i = 0; i < n; i++) {
+            double sk = absTol + relTol * Math.abs(yCur[i]);
+            d0 += (yCur[i] / sk) * (yCur[i] / sk);
+            d1 += (k1[i] / sk) * (k1[i] / sk);
+        }
+        d0 = Math.sqrt(d0 / n);
+        d1 = Math.sqrt(d1 / n);
+        double h0 = (d0 < 1e-5 || d1 < 1e-5) ? 1e-6 : 0.01 * d0 / d1;
+
+        for (int i = 0; i < n; i++) yStage[i] = yCur[i] + direction * h0 * k1[i];
+        system.computeDerivativeInto(t + direction * h0, yStage, k2);
+        evaluations++;
+
+        double d2 = 0;
+        for (int i = 0; i < n; i++) {
+            double sk = absTol + relTol * Math.abs(yCur[i]);
+            d2 += ((k2[i] - k1[i]) / sk) * ((k2[i] - k1[i]) / sk);
+        }
+        d2 = Math.sqrt(d2 / n) / h0;
+
+        double h1 = Math.max(d1, d2) <= 1e-15
+                ? Math.max(1e-6, h0 * 1e-3)
+                : Math.pow(0.01 / Math.max(d1, d2), 0.2);
+        return Math.min(100 * h0, h1);
+    }
+
+    private void ensureCapacity(int n) {
+        if (k1.length != n) {
+            k1 = new double[n];
+            k2 = new double[n];
+            k3 = new double[n];
+            k4 = new double[n];
+            k5 = new double[n];
+            k6 = new double[n];
+            k7 = new double[n];
+            yCur = new double[n];
+            yStage = new double[n];
+            yNew = new double[n];
+            r1 = new double[n];
+            r2 = new double[n];
+            r3 = new double[n];
+            r4 = new double[n];
+            r5 = new double[n];
+        }
+    }
+}
@@ -9,6 +9,9 @@ import io.github.rajveer.dragonfly.utils.Vector;
  */
 public class EulerSolver implements ODESolver {
 
+    /** Reusable derivative buffer, resized when the state dimension changes. */
+    private double[] dy = new double[0];
+
     /**
      * Perform one Euler integration step.
      *
@@ -20,7 +23,30 @@ public class EulerSolver implements ODESolver {
      */
     @Override
     public Vector step(ODESystem system, double t, Vector y, double dt) {
-        Vector dy = system.computeDerivative(t, y);
-        return y.add(dy.scale(dt));
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    /**
+     * Perform one Euler integration step without allocating.
+     *
+     * @param system the ODE system
+     * @param t current time
+     * @param y current state
+     * @param dt time step
+     * @param out receives y(t + dt); may alias {@code y}
+     */
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        int n = y.length;
+        if (dy.length != n) {
+            dy = new double[n];
+        }
+
+        system.computeDerivativeInto(t, y, dy);
+        for (int i = 0; i < n; i++) {
+            out[i] = y[i] + dt * dy[i];
+        }
     }
 }
@@ -0,0 +1,84 @@
+package io.github.rajveer.dragonfly.ode;
+
+/**
+ * A switching function g(t, y) whose sign changes mark events along a solution,
+ * such as a probe entering a planet or passing its closest approach.
+ * <p>
+ * An {@link EventLocator} evaluates g at the ends of every step and, if the step is
+ * longer than {@link #getMaxCheckInterval()}, at points in between on an interpolant.
+ * When the sign changes in the requested direction the event time is located by
+ * root-finding and {@link #eventOccurred} decides whether the integration goes on.
+ */
+public interface EventFunction {
+
+    /** What the integration does after an event. */
+    enum Action {
+        /** Keep integrating to the end of the step; the event is non-terminal. */
+        CONTINUE,
+        /** Stop at the event; the event is terminal. */
+        STOP
+    }
+
+    /**
+     * Evaluates the switching function.
+     *
+     * @param t time
+     * @param y state at t, not modified
+     * @return a value whose sign change marks the event
+     */
+    double g(double t, double[] y);
+
+    /**
+     * Returns the direction of sign changes that count as events.
+     *
+     * @return +1 for increasing g only, -1 for decreasing g only, 0 for both
+     */
+    default int getDirection() {
+        return 0;
+    }
+
+    /**
+     * Returns the longest interval over which g is assumed to change sign at most
+     * once. Steps longer than this are sampled at this spacing, so that a pair of
+     * roots inside one step is not missed. The default checks the step ends only.
+     *
+     * @return the check interval in time units
+     */
+    default double getMaxCheckInterval() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the first state component g reads. Together with
+     * {@link #getStateLength()} this lets the locator interpolate only that part of
+     * the state while it searches for a root; the other components of the array
+     * passed to {@link #g} are then stale. The default is the start of the state.
+     *
+     * @return the index of the first component read
+     */
+    default int getStateOffset() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of consecutive state components g reads, starting at
+     * {@link #getStateOffset()}. The default is the whole state.
+     *
+     * @return the number of components read
+     */
+    default int getStateLength() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Called at a located event. The state is only valid for the duration of the call.
+     *
+     * @param t          event time
+     * @param y          interpolated state at the event, complete, not modified
+     * @param increasing whether g was increasing through zero
+     * @return whether to stop the integration at this event; the default stops
+     */
+    default Action eventOccurred(double t, double[] y, boolean increasing) {
+        return Action.STOP;
+    }
+}
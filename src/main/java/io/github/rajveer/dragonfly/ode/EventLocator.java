@@ -0,0 +1,264 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.ODESystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Advances an {@link ODESolver} step by step while watching a set of
+ * {@link EventFunction}s, so events between the steps are found without shrinking
+ * the step size.
+ * <p>
+ * After each step the solution is interpolated across the step with a cubic Hermite
+ * polynomial through the states and derivatives at both ends. This needs one extra
+ * derivative evaluation per step; the derivative at the end of a step is reused at
+ * the start of the next when it continues from the same state. Every event function
+ * is sampled at the step ends and at its check interval, and a sign change in the
+ * requested direction is narrowed down with the Illinois variant of regula falsi
+ * until the bracket is shorter than the convergence threshold; only the part of the
+ * state an event function declares it reads is interpolated meanwhile, which keeps
+ * root-finding cheap when many small systems share one state. Events in a step are
+ * reported in time order; a terminal event ends the step there, and the events
+ * after it are discarded.
+ * <p>
+ * Workspaces are per instance, so a locator must not be shared between threads.
+ */
+public class EventLocator {
+
+    /** Iterations after which root-finding settles for the current bracket. */
+    private static final int MAX_ITERATIONS = 100;
+
+    private final ODESolver solver;
+    private final double convergence;
+    private final List<EventFunction> events = new ArrayList<>();
+
+    // Step workspace, resized when the dimension changes
+    private double[] y0 = new double[0];
+    private double[] f0 = new double[0];
+    private double[] f1 = new double[0];
+    private double[] yi = new double[0];
+
+    // End of the previous step, to reuse its derivative and switching values
+    private double[] lastY = new double[0];
+    private double lastT = Double.NaN;
+    private double[] lastG = new double[0];
+    private double[] g0 = new double[0];
+
+    // Events found in the current step
+    private double[] eventTimes = new double[0];
+    private boolean[] eventIncreasing = new boolean[0];
+    private int[] order = new int[0];
+
+    private double stepStart;
+    private double stepSize;
+
+    /**
+     * Creates an event locator.
+     *
+     * @param solver      solver taking the steps
+     * @param convergence width of the time bracket at which an event counts as located
+     */
+    public EventLocator(ODESolver solver, double convergence) {
+        if (!(convergence > 0)) {
+            throw new IllegalArgumentException("Convergence threshold must be positive: " + convergence);
+        }
+        this.solver = solver;
+        this.convergence = convergence;
+    }
+
+    /**
+     * Adds an event function to watch.
+     *
+     * @param event the event function
+     */
+    public void addEvent(EventFunction event) {
+        events.add(event);
+        lastT = Double.NaN;
+    }
+
+    /**
+     * Removes all event functions.
+     */
+    public void clearEvents() {
+        events.clear();
+        lastT = Double.NaN;
+    }
+
+    /**
+     * Performs one step of the solver and handles the events inside it.
+     *
+     * @param system the ODE system
+     * @param t      current time
+     * @param y      current state, not modified unless it aliases {@code out}
+     * @param dt     time step, positive
+     * @param out    receives the state at the returned time; may alias {@code y}
+     * @return t + dt, or the time of the terminal event that stopped the step
+     */
+    public double stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        int n = y.length;
+        ensureCapacity(n);
+        int m = events.size();
+
+        // State, derivative and switching values at the start of the step
+        boolean continues = t == lastT && Arrays.equals(y, lastY);
+        System.arraycopy(y, 0, y0, 0, n);
+        if (continues) {
+            System.arraycopy(f1, 0, f0, 0, n);
+            System.arraycopy(lastG, 0, g0, 0, m);
+        } else {
+            system.computeDerivativeInto(t, y0, f0);
+            for (int e = 0; e < m; e++) {
+                g0[e] = events.get(e).g(t, y0);
+            }
+        }
+
+        solver.stepInto(system, t, y0, dt, out);
+        double t1 = t + dt;
+        system.computeDerivativeInto(t1, out, f1);
+        stepStart = t;
+        stepSize = dt;
+
+        // Find the first sign change of every event function
+        int found = 0;
+        for (int e = 0; e < m; e++) {
+            EventFunction event = events.get(e);
+            int from = event.getStateOffset();
+            int to = (int) Math.min(n, (long) from + event.getStateLength());
+            int samples = (int) Math.min(1 << 20, Math.max(1, Math.ceil(dt / event.getMaxCheckInterval())));
+            double ta = t, ga = g0[e];
+            for (int s = 1; s <= samples; s++) {
+                double tb = s == samples ? t1 : t + dt * s / samples;
+                double gb;
+                if (s == samples) {
+                    gb = event.g(t1, out);
+                    lastG[e] = gb;
+                } else {
+                    interpolate(tb, out, yi, from, to);
+                    gb = event.g(tb, yi);
+                }
+                if ((ga < 0) != (gb < 0) && matches(event, gb >= 0)) {
+                    eventTimes[found] = locate(event, ta, ga, tb, gb, out, from, to);
+                    eventIncreasing[found] = gb >= 0;
+                    order[found] = e;
+                    found++;
+                    if (s < samples) {
+                        // the end value is needed for the next step
+                        lastG[e] = event.g(t1, out);
+                    }
+                    break;
+                }
+                ta = tb;
+                ga = gb;
+            }
+        }
+
+        // Report the events in time order
+        sortEvents(found);
+        for (int k = 0; k < found; k++) {
+            int e = order[k];
+            double te = eventTimes[k];
+            interpolate(te, out, yi, 0, n);
+            if (events.get(e).eventOccurred(te, yi, eventIncreasing[k]) == EventFunction.Action.STOP) {
+                System.arraycopy(yi, 0, out, 0, n);
+                lastT = Double.NaN;
+                return te;
+            }
+        }
+
+        System.arraycopy(out, 0, lastY, 0, n);
+        lastT = t1;
+        return t1;
+    }
+
+    private static boolean matches(EventFunction event, boolean increasing) {
+        int direction = event.getDirection();
+        return direction == 0 || (direction > 0) == increasing;
+    }
+
+    /**
+     * Narrows a sign change of g in [ta, tb] with the Illinois method and returns
+     * the end of the final bracket, where the sign has already changed.
+     */
+    private double locate(EventFunction event, double ta, double ga, double tb, double gb, double[] y1,
+                          int from, int to) {
+        int side = 0;
+        for (int i = 0; i < MAX_ITERATIONS && tb - ta > convergence; i++) {
+            double tc = tb - gb * (tb - ta) / (gb - ga);
+            if (!(tc > ta && tc < tb)) {
+                tc = 0.5 * (ta + tb);
+            }
+            interpolate(tc, y1, yi, from, to);
+            double gc = event.g(tc, yi);
+            if (gc == 0) {
+                return tc;
+            }
+            if ((gc < 0) == (gb < 0)) {
+                tb = tc;
+                gb = gc;
+                if (side == -1) ga *= 0.5;
+                side = -1;
+            } else {
+                ta = tc;
+                ga = gc;
+                if (side == 1) gb *= 0.5;
+                side = 1;
+            }
+        }
+        return tb;
+    }
+
+    /** Cubic Hermite interpolation of the components [from, to) across the current step. */
+    private void interpolate(double t, double[] y1, double[] out, int from, int to) {
+        double h = stepSize;
+        double s = (t - stepStart) / h;
+        double s2 = s * s, s3 = s2 * s;
+        double h00 = 2 * s3 - 3 * s2 + 1;
+        double h10 = (s3 - 2 * s2 + s) * h;
+        double h01 = -2 * s3 + 3 * s2;
+        double h11 = (s3 - s2) * h;
+        for (int i = from; i < to; i++) {
+            out[i] = h00 * y0[i] + h10 * f0[i] + h01 * y1[i] + h11 * f1[i];
+        }
+    }
+
+    /** Insertion sort of the found events by time, keeping the registration order on ties. */
+    private void sortEvents(int found) {
+        for (int i = 1; i < found; i++) {
+            double te = eventTimes[i];
+            boolean inc = eventIncreasing[i];
+            int e = order[i];
+            int j = i - 1;
+            while (j >= 0 && eventTimes[j] > te) {
+                eventTimes[j + 1] = eventTimes[j];
+                eventIncreasing[j + 1] = eventIncreasing[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            eventTimes[j + 1] = te;
+            eventIncreasing[j + 1] = inc;
+            order[j + 1] = e;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (y0.length != n) {
+            y0 = new double[n];
+            f0 = new double[n];
+            f1 = new double[n];
+            yi = new double[n];
+            lastY = new double[n];
+            lastT = Double.NaN;
+        }
+        int m = events.size();
+        if (g0.length != m) {
+            g0 = new double[m];
+            lastG = new double[m];
+            eventTimes = new double[m];
+            eventIncreasing = new boolean[m];
+            order = new int[m];
+            lastT = Double.NaN;
+        }
+    }
+}
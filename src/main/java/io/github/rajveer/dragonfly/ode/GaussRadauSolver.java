@@ -0,0 +1,450 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.systems.SeparableSystem;
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive 15th-order Gauss–Radau integrator in the style of IAS15
+ * (Rein &amp; Spiegel 2015) for close encounters.
+ * <p>
+ * Within a step the acceleration is approximated by a 7th-degree polynomial in the
+ * step fraction, sampled at the Gauss–Radau spacings. The polynomial coefficients
+ * are found by predictor-corrector iteration until they stop changing at machine
+ * precision, and positions and velocities follow by integrating the polynomial.
+ * Compensated summation keeps round-off from accumulating over long runs.
+ * <p>
+ * The step size is a fixed fraction of the shortest timescale on which any
+ * body's acceleration changes, estimated from the converged polynomial
+ * (Pham, Rein &amp; Spiegel 2024). This keeps the error of a step near round-off
+ * without a user tolerance, and unlike the highest-order coefficient it is not
+ * swamped by round-off noise for satellites in heliocentric coordinates. Each
+ * call to {@link #step} advances by exactly {@code dt} and carries the internal
+ * step size and predicted coefficients over to the next call, so a fixed daily
+ * sampling interval still resolves minute-scale flybys.
+ * <p>
+ * Bodies the system reports as fixed keep their state.
+ * <p>
+ * The system must implement {@link SeparableSystem}.
+ */
+public class GaussRadauSolver implements ODESolver {
+
+    /** Gauss–Radau spacings of the substeps within [0, 1]. */
+    private static final double[] H = {
+            0.0,
+            0.0562625605369221464656521910318,
+            0.180240691736892364987579942780,
+            0.352624717113169637373907769648,
+            0.547153626330555383001448554766,
+            0.734210177215410531523210605558,
+            0.885320946839095768090359771030,
+            0.977520613561287501891174488626
+    };
+
+    /**
+     * Conversion from the Newton-form coefficients g to the power-form b:
+     * B_FROM_G[k][p] is the coefficient of h^(p+1) in the k-th Newton basis
+     * polynomial h·(h - h1)·…·(h - hk).
+     */
+    private static final double[][] B_FROM_G = newtonToPower();
+
+    /** Binomial coefficients for re-expanding the polynomial onto the next step. */
+    private static final double[][] BINOMIAL = binomials(8);
+
+    /** Step size control constant ε_b. */
+    private static final double EPSILON = 1e-9;
+
+    /** Fraction of the acceleration timescale taken as the next step, (7!·ε_b)^(1/7). */
+    private static final double STEP_FACTOR = Math.pow(5040 * EPSILON, 1.0 / 7);
+
+    /** Maximum predictor-corrector iterations per step. */
+    private static final int MAX_ITERATIONS = 12;
+
+    /** Steps shrinking below this factor are rejected and redone. */
+    private static final double SAFETY = 0.25;
+
+    private double h;
+
+    private int bodies;
+    private double[] x0, v0, a0;
+    private double[] csx, csv;
+    private double[] xs, acc;
+    private double[][] b, g;
+    private double[] b6Old;
+    private final double[] expanded = new double[7];
+    private boolean[] fixed;
+    private double[] packed = new double[0];
+
+    private ODESystem lastSystem;
+    private double lastTime = Double.NaN;
+    private double[] lastState = new double[0];
+
+    private long evaluations, accepted, rejected;
+
+    /** @return number of acceleration evaluations so far */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /** @return number of accepted internal steps so far */
+    public long getAcceptedSteps() {
+        return accepted;
+    }
+
+    /** @return number of rejected internal steps so far */
+    public long getRejectedSteps() {
+        return rejected;
+    }
+
+    @Override
+    public Vector step(ODESystem system, double t, Vector y, double dt) {
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    /**
+     * Advances the state from {@code t} to exactly {@code t + dt} with adaptive
+     * internal steps.
+     *
+     * @param system a {@link SeparableSystem}
+     * @param t current time
+     * @param y current state
+     * @param dt interval to advance; may be negative
+     * @param out receives the state at t + dt; may alias {@code y}
+     */
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        SeparableSystem separable = CompositionSolver.requireSeparable(system);
+        int n = y.length;
+        boolean continued = system == lastSystem && t == lastTime
+                && lastState.length == n && Arrays.equals(y, lastState);
+        if (!continued) {
+            reset(separable, n / 6);
+            for (int i = 0; i < bodies; i++) {
+                for (int k = 0; k < 3; k++) {
+                    x0[3 * i + k] = y[6 * i + k];
+                    v0[3 * i + k] = y[6 * i + 3 + k];
+                }
+            }
+            separable.computeAccelerationInto(t, y, acc);
+            evaluations++;
+            System.arraycopy(acc, 0, a0, 0, acc.length);
+        }
+
+        if (dt == 0) {
+            System.arraycopy(y, 0, out, 0, n);
+            return;
+        }
+
+        double direction = Math.signum(dt);
+        double tEnd = t + dt;
+        if (h == 0) {
+            h = Math.abs(dt);
+        }
+
+        double time = t;
+        while ((tEnd - time) * direction > 0) {
+            // A remainder of a few ulps is rounding in the step sum, not a step to take
+            double minStep = Math.ulp(Math.max(Math.abs(time), Math.abs(tEnd))) * 16;
+            if (Math.abs(tEnd - time) <= minStep) {
+                break;
+            }
+            // Below that the step no longer moves time, e.g. in a near-singular encounter
+            if (!(h > minStep)) {
+                throw new IllegalStateException("Step size underflow at t = " + time);
+            }
+
+            double hStep = Math.min(h, Math.abs(tEnd - time)) * direction;
+            boolean clipped = Math.abs(hStep) < h;
+            double hNew = attempt(separable, time, hStep);
+
+            if (Math.abs(hNew) < SAFETY * Math.abs(hStep)) {
+                // Too coarse: retry with the smaller step from the original state
+                rescale(hNew / hStep);
+                h = Math.abs(hNew);
+                rejected++;
+                continue;
+            }
+
+            commit(hStep, hNew);
+            separable.computeAccelerationInto(time + hStep, packState(), acc);
+            evaluations++;
+            System.arraycopy(acc, 0, a0, 0, acc.length);
+
+            time = (tEnd - (time + hStep)) * direction <= 0 ? tEnd : time + hStep;
+            if (!clipped || Math.abs(hNew) > h) {
+                h = Math.abs(hNew);
+            }
+            accepted++;
+        }
+
+        double[] state = packState();
+        System.arraycopy(state, 0, out, 0, n);
+        lastSystem = system;
+        lastTime = tEnd;
+        if (lastState.length != n) {
+            lastState = new double[n];
+        }
+        System.arraycopy(state, 0, lastState, 0, n);
+    }
+
+    /**
+     * Runs the predictor-corrector iteration for one step of size {@code hs} and
+     * returns the step size suggested for the next step.
+     */
+    private double attempt(SeparableSystem system, double t, double hs) {
+        int dim = 3 * bodies;
+        double maxChange = Double.POSITIVE_INFINITY;
+        double previousChange = Double.POSITIVE_INFINITY;
+
+        for (int iter = 0; iter < MAX_ITERATIONS && maxChange > 1e-16; iter++) {
+            System.arraycopy(b[6], 0, b6Old, 0, dim);
+
+            for (int s = 1; s < H.length; s++) {
+                predict(H[s], hs);
+                system.computeAccelerationInto(t + H[s] * hs, statesAt(), acc);
+                evaluations++;
+
+                // Newton divided differences for g_s, then refresh the power form
+                for (int k = 0; k < dim; k++) {
+                    double d = (acc[k] - a0[k]) / H[s];
+                    for (int m = 1; m < s; m++) {
+                        d = (d - g[m - 1][k]) / (H[s] - H[m]);
+                    }
+                    g[s - 1][k] = d;
+                }
+                for (int p = 0; p < 7; p++) {
+                    for (int k = 0; k < dim; k++) {
+                        double sum = 0;
+                        for (int q = p; q < 7; q++) {
+                            sum += g[q][k] * B_FROM_G[q][p];
+                        }
+                        b[p][k] = sum;
+                    }
+                }
+            }
+
+            double maxDb = 0, maxA = 0;
+            for (int k = 0; k < dim; k++) {
+                maxDb = Math.max(maxDb, Math.abs(b[6][k] - b6Old[k]));
+                maxA = Math.max(maxA, Math.abs(acc[k]));
+            }
+            maxChange = maxA == 0 ? 0 : maxDb / maxA;
+            if (maxChange >= previousChange) {
+                break; // Oscillating at round-off level
+            }
+            previousChange = maxChange;
+        }
+
+        // Shortest timescale on which any body's acceleration changes
+        double minTau2 = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < bodies; i++) {
+            double a2 = 0, j2 = 0, s2 = 0;
+            for (int c = 0; c < 3; c++) {
+                int k = 3 * i + c;
+                double a = a0[k], jerk = 0, snap = 0;
+                for (int p = 0; p < 7; p++) {
+                    a += b[p][k];
+                    jerk += (p + 1) * b[p][k];
+                    snap += (p + 1) * p * b[p][k];
+                }
+                a2 += a * a;
+                j2 += jerk * jerk;
+                s2 += snap * snap;
+            }
+            double denominator = j2 + Math.sqrt(a2 * s2);
+            if (a2 > 0 && denominator > 0) {
+                minTau2 = Math.min(minTau2, 2 * a2 / denominator);
+            }
+        }
+
+        if (Double.isNaN(minTau2)) {
+            return hs * SAFETY * SAFETY;
+        }
+        // τ is measured in units of the step just taken
+        double scale = Math.sqrt(minTau2) * STEP_FACTOR;
+        return hs * Math.min(scale, 1 / SAFETY);
+    }
+
+    /** Writes the predicted positions and velocities at step fraction {@code f} into {@code xs}. */
+    private void predict(double f, double hs) {
+        int dim = 3 * bodies;
+        for (int k = 0; k < dim; k++) {
+            if (fixed[k / 3]) {
+                xs[k] = x0[k] - csx[k];
+                xs[dim + k] = v0[k] - csv[k];
+                continue;
+            }
+            double xPoly = a0[k] / 2;
+            double vPoly = a0[k];
+            double fp = f;
+            for (int p = 0; p < 7; p++) {
+                xPoly += b[p][k] * fp / ((p + 2) * (p + 3));
+                vPoly += b[p][k] * fp / (p + 2);
+                fp *= f;
+            }
+            xs[k] = (x0[k] - csx[k]) + f * hs * ((v0[k] - csv[k]) + f * hs * xPoly);
+            xs[dim + k] = (v0[k] - csv[k]) + f * hs * vPoly;
+        }
+    }
+
+    /**
+     * Advances x0, v0 to the end of the accepted step with compensated summation
+     * and predicts the coefficients of the next step.
+     */
+    private void commit(double hs, double hNext) {
+        int dim = 3 * bodies;
+        for (int k = 0; k < dim; k++) {
+            if (fixed[k / 3]) continue;
+            double dx = hs * ((v0[k] - csv[k]) + hs * (a0[k] / 2));
+            double dv = hs * a0[k];
+            for (int p = 0; p < 7; p++) {
+                dx += hs * hs * b[p][k] / ((p + 2) * (p + 3));
+                dv += hs * b[p][k] / (p + 2);
+            }
+            addCompensated(x0, csx, k, dx);
+            addCompensated(v0, csv, k, dv);
+        }
+
+        // Re-expand the acceleration polynomial around the new step start, h = 1 + q·s
+        double q = hNext / hs;
+        if (Math.abs(q) > 20) {
+            // Too far to extrapolate usefully; start the next step from scratch
+            for (double[] row : b) Arrays.fill(row, 0);
+            for (double[] row : g) Arrays.fill(row, 0);
+            return;
+        }
+        for (int k = 0; k < dim; k++) {
+            for (int m = 1; m <= 7; m++) {
+                double sum = 0;
+                for (int p = m - 1; p < 7; p++) {
+                    sum += b[p][k] * BINOMIAL[p + 1][m];
+                }
+                expanded[m - 1] = sum * Math.pow(q, m);
+            }
+            for (int p = 0; p < 7; p++) {
+                b[p][k] = expanded[p];
+            }
+        }
+        syncNewtonForm();
+    }
+
+    /** Rescales the coefficients for a retry of the same step with a different size. */
+    private void rescale(double q) {
+        int dim = 3 * bodies;
+        for (int p = 0; p < 7; p++) {
+            double f = Math.pow(q, p + 1);
+            for (int k = 0; k < dim; k++) {
+                b[p][k] *= f;
+            }
+        }
+        syncNewtonForm();
+    }
+
+    /** Recomputes g from b, so the divided differences start from the current prediction. */
+    private void syncNewtonForm() {
+        int dim = 3 * bodies;
+        for (int k = 0; k < dim; k++) {
+            for (int s = 6; s >= 0; s--) {
+                double sum = b[s][k];
+                for (int q2 = s + 1; q2 < 7; q2++) {
+                    sum -= g[q2][k] * B_FROM_G[q2][s];
+                }
+                g[s][k] = sum / B_FROM_G[s][s];
+            }
+        }
+    }
+
+    private static void addCompensated(double[] sum, double[] compensation, int k, double value) {
+        double y = value - compensation[k];
+        double t = sum[k] + y;
+        compensation[k] = (t - sum[k]) - y;
+        sum[k] = t;
+    }
+
+    /** Packs the predicted substep positions and velocities into a 6N state. */
+    private double[] statesAt() {
+        int dim = 3 * bodies;
+        double[] state = workState();
+        for (int i = 0; i < bodies; i++) {
+            for (int k = 0; k < 3; k++) {
+                state[6 * i + k] = xs[3 * i + k];
+                state[6 * i + 3 + k] = xs[dim + 3 * i + k];
+            }
+        }
+        return state;
+    }
+
+    /** Packs the current step start into a 6N state. */
+    private double[] packState() {
+        double[] state = workState();
+        for (int i = 0; i < bodies; i++) {
+            for (int k = 0; k < 3; k++) {
+                state[6 * i + k] = x0[3 * i + k] - csx[3 * i + k];
+                state[6 * i + 3 + k] = v0[3 * i + k] - csv[3 * i + k];
+            }
+        }
+        return state;
+    }
+
+    private double[] workState() {
+        if (packed.length != 6 * bodies) {
+            packed = new double[6 * bodies];
+        }
+        return packed;
+    }
+
+    private void reset(SeparableSystem system, int bodies) {
+        this.bodies = bodies;
+        int dim = 3 * bodies;
+        x0 = new double[dim];
+        v0 = new double[dim];
+        a0 = new double[dim];
+        csx = new double[dim];
+        csv = new double[dim];
+        xs = new double[2 * dim];
+        acc = new double[dim];
+        b = new double[7][dim];
+        g = new double[7][dim];
+        b6Old = new double[dim];
+        fixed = new boolean[bodies];
+        for (int i = 0; i < bodies; i++) {
+            fixed[i] = system.isBodyFixed(i);
+        }
+        h = 0;
+    }
+
+    private static double[][] newtonToPower() {
+        double[][] c = new double[7][7];
+        // Basis k (0-based) is h * Π_{m=1..k} (h - H[m]); expand its coefficients
+        double[] poly = {1};
+        for (int k = 0; k < 7; k++) {
+            if (k > 0) {
+                double[] next = new double[poly.length + 1];
+                for (int p = 0; p < poly.length; p++) {
+                    next[p + 1] += poly[p];
+                    next[p] -= H[k] * poly[p];
+                }
+                poly = next;
+            }
+            for (int p = 0; p < poly.length; p++) {
+                c[k][p] = poly[p];
+            }
+        }
+        return c;
+    }
+
+    private static double[][] binomials(int n) {
+        double[][] c = new double[n + 1][n + 1];
+        for (int i = 0; i <= n; i++) {
+            c[i][0] = 1;
+            for (int j = 1; j <= i; j++) {
+                c[i][j] = c[i - 1][j - 1] + (j <= i - 1 ? c[i - 1][j] : 0);
+            }
+        }
+        return c;
+    }
+}
@@ -14,4 +14,24 @@ public interface ODESolver {
      * @return estimated state vector after time step
      */
     Vector step(ODESystem system, double t, Vector y, double dt);
+
+    /**
+     * Perform one step of the ODE solver, writing the result into {@code out}.
+     * <p>
+     * Implementations keep their stage buffers as reusable workspaces, so a solver
+     * instance must not be shared between threads. {@code out} may be the same
+     * array as {@code y}. The default implementation adapts {@link #step}.
+     *
+     * @param system the ODE system
+     * @param t current time
+     * @param y current state, not modified unless it aliases {@code out}
+     * @param dt time step
+     * @param out buffer of the same length as {@code y}, receives the state at t + dt
+     */
+    default void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        Vector next = step(system, t, new Vector(y), dt);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = next.get(i);
+        }
+    }
 }
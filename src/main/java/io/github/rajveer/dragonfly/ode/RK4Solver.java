@@ -8,9 +8,19 @@ import io.github.rajveer.dragonfly.utils.Vector;
  * Approximates y(t + dt) using intermediate slopes:
  *
  * y(t + dt) ≈ y + (dt/6) * (k1 + 2k2 + 2k3 + k4)
+ * <p>
+ * The stage slopes live in reusable workspaces, so an instance must not be
+ * shared between threads.
  */
 public class RK4Solver implements ODESolver {
 
+    /** Stage slopes and the intermediate state, resized when the dimension changes. */
+    private double[] k1 = new double[0];
+    private double[] k2 = new double[0];
+    private double[] k3 = new double[0];
+    private double[] k4 = new double[0];
+    private double[] tmp = new double[0];
+
     /**
      * Perform one RK4 step.
      *
@@ -22,15 +32,50 @@ public class RK4Solver implements ODESolver {
      */
     @Override
     public Vector step(ODESystem system, double t, Vector y, double dt) {
-        Vector k1 = system.computeDerivative(t, y);
-        Vector k2 = system.computeDerivative(t + dt / 2, y.add(k1.scale(dt / 2)));
-        Vector k3 = system.computeDerivative(t + dt / 2, y.add(k2.scale(dt / 2)));
-        Vector k4 = system.computeDerivative(t + dt, y.add(k3.scale(dt)));
-
-        Vector sum = k1
-                .add(k2.scale(2))
-                .add(k3.scale(2))
-                .add(k4);
-        return y.add(sum.scale(dt / 6.0));
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    /**
+     * Perform one RK4 step without allocating.
+     *
+     * @param system the ODE system
+     * @param t current time
+     * @param y current state
+     * @param dt time step
+     * @param out receives the estimated state at t + dt; may alias {@code y}
+     */
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        int n = y.length;
+        ensureCapacity(n);
+        double half = dt / 2;
+
+        system.computeDerivativeInto(t, y, k1);
+        for (int i = 0; i < n; i++) tmp[i] = y[i] + half * k1[i];
+
+        system.computeDerivativeInto(t + half, tmp, k2);
+        for (int i = 0; i < n; i++) tmp[i] = y[i] + half * k2[i];
+
+        system.computeDerivativeInto(t + half, tmp, k3);
+        for (int i = 0; i < n; i++) tmp[i] = y[i] + dt * k3[i];
+
+        system.computeDerivativeInto(t + dt, tmp, k4);
+
+        double sixth = dt / 6.0;
+        for (int i = 0; i < n; i++) {
+            out[i] = y[i] + sixth * (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i]);
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (k1.length != n) {
+            k1 = new double[n];
+            k2 = new double[n];
+            k3 = new double[n];
+            k4 = new double[n];
+            tmp = new double[n];
+        }
     }
 }
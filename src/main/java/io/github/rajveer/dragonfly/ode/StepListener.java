@@ -0,0 +1,16 @@
+package io.github.rajveer.dragonfly.ode;
+
+/**
+ * Callback invoked by adaptive solvers after every accepted internal step.
+ */
+@FunctionalInterface
+public interface StepListener {
+
+    /**
+     * Called once a step has been accepted. The dense output is only valid for
+     * the duration of the call.
+     *
+     * @param output continuous solution over the accepted step
+     */
+    void onStep(DenseOutput output);
+}
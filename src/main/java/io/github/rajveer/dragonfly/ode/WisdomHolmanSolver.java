@@ -0,0 +1,115 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.GravitySystem;
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.utils.Kepler;
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Wisdom–Holman mixed-variable symplectic map for planetary systems with a fixed
+ * central body.
+ * <p>
+ * The Hamiltonian is split into the Keplerian motion of every body around the Sun,
+ * which is propagated exactly in universal variables, and the mutual interactions
+ * of the remaining bodies, which are applied as kicks:
+ * kick(dt/2) · Kepler drift(dt) · kick(dt/2). Because the dominant solar term is
+ * integrated analytically, the error scales with the planet-to-Sun mass ratio and
+ * steps can be far larger than with {@link CompositionSolver}.
+ * <p>
+ * The system must be a {@link GravitySystem} with a fixed Sun at index 0, so that the
+ * heliocentric frame is inertial. The interaction kick at the end of a step is
+ * reused by the next call when it continues from that state.
+ */
+public class WisdomHolmanSolver implements ODESolver {
+
+    private double[] acc = new double[0];
+    private double[] state = new double[0];
+    private final double[] rel = new double[6];
+
+    private ODESystem lastSystem;
+    private double lastTime = Double.NaN;
+
+    @Override
+    public Vector step(ODESystem system, double t, Vector y, double dt) {
+        double[] out = new double[y.length()];
+        stepInto(system, t, y.toArray(), dt, out);
+        return new Vector(out);
+    }
+
+    @Override
+    public void stepInto(ODESystem system, double t, double[] y, double dt, double[] out) {
+        if (!(system instanceof GravitySystem gravity) || !gravity.isFixedSun()) {
+            throw new IllegalArgumentException("Wisdom-Holman requires a GravitySystem with a fixed Sun");
+        }
+
+        int n = y.length;
+        boolean continued = system == lastSystem && t == lastTime
+                && state.length == n && Arrays.equals(y, state);
+        if (state.length != n) {
+            state = new double[n];
+            acc = new double[n / 2];
+        }
+        System.arraycopy(y, 0, state, 0, n);
+
+        double mu = gravity.getGravitationalParameter(0);
+        if (!continued) {
+            interactionAccelerations(gravity, t, mu);
+        }
+
+        kick(0.5 * dt);
+        keplerDrift(mu, dt);
+        interactionAccelerations(gravity, t + dt, mu);
+        kick(0.5 * dt);
+
+        lastSystem = system;
+        lastTime = t + dt;
+        System.arraycopy(state, 0, out, 0, n);
+    }
+
+    /**
+     * Computes accelerations without the direct pull of the Sun, which the Kepler
+     * drift already accounts for.
+     */
+    private void interactionAccelerations(GravitySystem system, double t, double mu) {
+        system.computeAccelerationInto(t, state, acc);
+
+        double sx = state[0], sy = state[1], sz = state[2];
+        int bodies = state.length / 6;
+        for (int i = 1; i < bodies; i++) {
+            double dx = state[6 * i] - sx;
+            double dy = state[6 * i + 1] - sy;
+            double dz = state[6 * i + 2] - sz;
+            double r2 = dx * dx + dy * dy + dz * dz;
+            if (r2 == 0) continue;
+            double f = mu / (r2 * Math.sqrt(r2));
+            acc[3 * i] += dx * f;
+            acc[3 * i + 1] += dy * f;
+            acc[3 * i + 2] += dz * f;
+        }
+    }
+
+    private void kick(double h) {
+        int bodies = state.length / 6;
+        for (int i = 1; i < bodies; i++) {
+            state[6 * i + 3] += h * acc[3 * i];
+            state[6 * i + 4] += h * acc[3 * i + 1];
+            state[6 * i + 5] += h * acc[3 * i + 2];
+        }
+    }
+
+    /** Advances every body along its heliocentric Kepler orbit. */
+    private void keplerDrift(double mu, double h) {
+        int bodies = state.length / 6;
+        for (int i = 1; i < bodies; i++) {
+            for (int k = 0; k < 6; k++) {
+                rel[k] = state[6 * i + k] - state[k];
+            }
+            Kepler.propagate(mu, rel, 0, h);
+            for (int k = 0; k < 6; k++) {
+                state[6 * i + k] = rel[k] + state[k];
+            }
+        }
+    }
+}
@@ -2,17 +2,22 @@ package io.github.rajveer.dragonfly.simulations;
 
 import io.github.rajveer.dragonfly.systems.SolarSystem;
 import io.github.rajveer.dragonfly.utils.Figure;
-import io.github.rajveer.dragonfly.utils.Vector;
+import io.github.rajveer.dragonfly.utils.Trajectory;
+import io.github.rajveer.dragonfly.utils.TrajectoryFile;
+import io.github.rajveer.dragonfly.utils.TrajectoryView;
+import io.github.rajveer.dragonfly.utils.TrajectoryWriter;
 import io.github.rajveer.dragonfly.ode.RK4Solver;
 import io.github.rajveer.dragonfly.ode.ODESolver;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
 public class SolarSystemSim {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Masses of celestial bodies in kg
         List<Double> masses = Arrays.asList(
                 1.99e30, 3.30e23, 4.87e24, 5.97e24, 7.35e22,
@@ -60,52 +65,79 @@ public class SolarSystemSim {
                 4.47e9, -5.31e7, -1.02e8, 0.0287, 5.47, -0.113
         };
 
-        // Create SolarSystem and RK4 solver
-        List<Vector> trajectory = getVectors(masses, initialStateKm);
-
-        // Figure Series-PosLists
-        List<double[]> xs_fig = new ArrayList<>();
-        List<double[]> ys_fig = new ArrayList<>();
-        List<double[]> zs_fig = new ArrayList<>();
+        // With a file argument the run is saved there, or replayed from it if it already exists
+        Path file = args.length > 0 ? Path.of(args[0]) : null;
+        TrajectoryView trajectory;
+        if (file != null && Files.exists(file)) {
+            trajectory = TrajectoryFile.open(file);
+        } else {
+            // Create SolarSystem and RK4 solver
+            trajectory = simulate(masses, initialStateKm, file);
+
+            // Output the trajectory
+            double[] state = new double[initialStateKm.length];
+            for (int i = 0; i < trajectory.size(); i++) {
+                trajectory.stateInto(i, state);
+                System.out.println("Day " + i + ": " + Arrays.toString(state));
+            }
+        }
 
-        // Output the trajectory
-        for (int i = 0; i < trajectory.size(); i++) {
-            System.out.println("Day " + i + ": " + trajectory.get(i));
-            xs_fig.add(new double[]{i, trajectory.get(i).get(0 + (6*4))});
-            ys_fig.add(new double[]{i, trajectory.get(i).get(1 + (6*4))});
-            zs_fig.add(new double[]{i, trajectory.get(i).get(2 + (6*4))});
+        // Figure series of the Moon (body 4), read straight from the trajectory columns
+        double[] days = trajectory.times();
+        for (int i = 0; i < days.length; i++) {
+            days[i] /= 86400;
         }
 
         Figure.setTitle("Moon Position Over 4 years");
         Figure.setXLabel("Days");
         Figure.setYLabel("Position (km)");
 
-        Figure.addSeries("X Position", xs_fig);
-        Figure.addSeries("Y Position", ys_fig);
-        Figure.addSeries("Z Position", zs_fig);
+        Figure.addSeries("X Position", days, trajectory.column(4, 0));
+        Figure.addSeries("Y Position", days, trajectory.column(4, 1));
+        Figure.addSeries("Z Position", days, trajectory.column(4, 2));
+
+        // The series are copies, so a replayed file can be unmapped before the window opens
+        if (trajectory instanceof TrajectoryFile stored) {
+            stored.close();
+        }
 
         Figure.show();
 
     }
 
-    private static List<Vector> getVectors(List<Double> masses, double[] initialStateKm) {
+    /**
+     * Integrates the system for four years. With a file the states are only streamed
+     * to it and read back through a mapping, so the run never has to fit in the heap.
+     */
+    private static TrajectoryView simulate(List<Double> masses, double[] initialStateKm, Path saveTo)
+            throws IOException {
         SolarSystem solarSystem = new SolarSystem(masses);
         ODESolver solver = new RK4Solver(); // or just: RK4Solver rk4 = new RK4Solver();
 
         // Simulation parameters
         double t0 = 0;
-        double tEnd = 86400 * 365 * 4; // 1 year
+        double tEnd = 86400 * 365 * 4; // 4 years
         double dt = 86400;         // 1 day
 
-        Vector y = new Vector(initialStateKm);
+        double[] y = initialStateKm.clone();
         double t = t0;
-        List<Vector> trajectory = new ArrayList<>();
+        if (saveTo == null) {
+            Trajectory trajectory = new Trajectory(masses.size(), 6);
+            while (t < tEnd) {
+                trajectory.append(t, y);
+                solver.stepInto(solarSystem, t, y, dt, y);
+                t += dt;
+            }
+            return trajectory;
+        }
 
-        while (t < tEnd) {
-            trajectory.add(y);
-            y = solver.step(solarSystem, t, y, dt);
-            t += dt;
+        try (TrajectoryWriter writer = new TrajectoryWriter(saveTo, masses.size(), 6, dt, false)) {
+            while (t < tEnd) {
+                writer.append(t, y);
+                solver.stepInto(solarSystem, t, y, dt, y);
+                t += dt;
+            }
         }
-        return trajectory;
+        return TrajectoryFile.open(saveTo);
     }
 }
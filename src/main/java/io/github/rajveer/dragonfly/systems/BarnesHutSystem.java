@@ -0,0 +1,340 @@
+package io.github.rajveer.dragonfly.systems;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * N-body gravity with a Barnes-Hut octree, for populations too large for direct
+ * O(N²) summation such as asteroid or Kuiper belt scenarios.
+ * <p>
+ * On every derivative call the octree is rebuilt from the gathered positions and
+ * each body walks it, treating a node as a single point mass at its centre of mass
+ * when {@code size / distance < θ}. Node storage is kept in flat arrays that are
+ * reused between calls and only grow when a larger tree is needed.
+ * <p>
+ * Only massive bodies are inserted into the tree; test particles appended after them
+ * just walk it. Below {@link #getDirectThreshold()} massive bodies the tree overhead
+ * does not pay off and the exact summation of {@link SolarSystem} is used instead.
+ */
+public class BarnesHutSystem extends GravitySystem {
+
+    /** Default opening angle θ. */
+    public static final double DEFAULT_THETA = 0.5;
+
+    /** Default body count below which direct summation is used. */
+    public static final int DEFAULT_DIRECT_THRESHOLD = 1024;
+
+    /** Depth at which leaves stop splitting and chain their bodies instead. */
+    private static final int MAX_DEPTH = 48;
+
+    /** Marks a node that has been split into octants. */
+    private static final int INTERNAL = -2;
+
+    /** Marks a leaf without bodies. */
+    private static final int EMPTY = -1;
+
+    private final double theta;
+    private final int directThreshold;
+
+    /** Number of nodes in use for the current tree. */
+    private int nodeCount;
+
+    /** Per node: first body of a leaf, {@link #EMPTY} or {@link #INTERNAL}. */
+    private int[] nodeBody;
+    /** Per node: parent index, -1 for the root. */
+    private int[] nodeParent;
+    /** Per node: eight child indices, -1 where the octant is empty. */
+    private int[] nodeChild;
+    /** Per node: cell centre and half width. */
+    private double[] cellX, cellY, cellZ, cellHalf;
+    /** Per node: total G·m and centre of mass. */
+    private double[] nodeGm, comX, comY, comZ;
+
+    /** Next body in the same leaf chain, -1 at the end. */
+    private final int[] nextBody;
+
+    /** Traversal stack, sized for the deepest tree. */
+    private final int[] stack = new int[8 * MAX_DEPTH + 8];
+
+    /**
+     * Constructs a Barnes-Hut system with the default opening angle and a fixed Sun.
+     *
+     * @param masses list of body masses in kilograms, in the same order as the state vector
+     */
+    public BarnesHutSystem(List<Double> masses) {
+        this(masses, true, DEFAULT_THETA, DEFAULT_DIRECT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a Barnes-Hut system.
+     *
+     * @param masses          list of body masses in kilograms, in the same order as the state vector
+     * @param fixedSun        whether the Sun (index 0) is kept static
+     * @param theta           opening angle; 0 degenerates to exact summation, larger is faster
+     * @param directThreshold body count below which direct summation is used
+     */
+    public BarnesHutSystem(List<Double> masses, boolean fixedSun, double theta, int directThreshold) {
+        this(masses, 0, fixedSun, theta, directThreshold);
+    }
+
+    /**
+     * Constructs a Barnes-Hut system with massless test particles appended after the
+     * massive bodies.
+     *
+     * @param masses           list of massive body masses in kilograms, in the same order as the state vector
+     * @param numTestParticles number of massless test particles following the massive bodies
+     * @param fixedSun         whether the Sun (index 0) is kept static
+     * @param theta            opening angle; 0 degenerates to exact summation, larger is faster
+     * @param directThreshold  massive body count below which direct summation is used
+     */
+    public BarnesHutSystem(List<Double> masses, int numTestParticles, boolean fixedSun,
+                           double theta, int directThreshold) {
+        super(masses, numTestParticles, fixedSun);
+        if (theta < 0) {
+            throw new IllegalArgumentException("Opening angle must be non-negative: " + theta);
+        }
+        this.theta = theta;
+        this.directThreshold = directThreshold;
+        this.nextBody = new int[numMassive];
+        allocateNodes(Math.max(16, 2 * numMassive));
+    }
+
+    /**
+     * Returns the opening angle θ.
+     *
+     * @return the opening angle
+     */
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * Returns the massive body count below which direct summation is used.
+     *
+     * @return the direct summation threshold
+     */
+    public int getDirectThreshold() {
+        return directThreshold;
+    }
+
+    @Override
+    protected void computeAccelerations() {
+        if (numMassive < directThreshold) {
+            SolarSystem.accumulatePairs(numMassive, px, py, pz, gm, ax, ay, az);
+            SolarSystem.accumulateTestParticles(numMassive, numBodies, numMassive, px, py, pz, gm, ax, ay, az);
+            return;
+        }
+
+        buildTree();
+        computeMoments();
+
+        for (int i = 0; i < numBodies; i++) {
+            walk(i);
+        }
+    }
+
+    /** Inserts every massive body into a fresh tree rooted at a cube enclosing their positions. */
+    private void buildTree() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numMassive; i++) {
+            minX = Math.min(minX, px[i]);
+            minY = Math.min(minY, py[i]);
+            minZ = Math.min(minZ, pz[i]);
+            maxX = Math.max(maxX, px[i]);
+            maxY = Math.max(maxY, py[i]);
+            maxZ = Math.max(maxZ, pz[i]);
+        }
+        double half = 0.5 * Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+
+        nodeCount = 0;
+        // Slightly enlarge the root so bodies on the boundary fall strictly inside
+        newNode(-1, 0.5 * (minX + maxX), 0.5 * (minY + maxY), 0.5 * (minZ + maxZ), half * (1 + 1e-9) + 1e-9);
+
+        for (int i = 0; i < numMassive; i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int body) {
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            int occupant = nodeBody[node];
+            if (occupant == INTERNAL) {
+                int octant = octant(node, px[body], py[body], pz[body]);
+                int child = nodeChild[node * 8 + octant];
+                if (child < 0) {
+                    child = newChild(node, octant);
+                    nodeBody[child] = body;
+                    nextBody[body] = -1;
+                    return;
+                }
+                node = child;
+                depth++;
+            } else if (occupant == EMPTY) {
+                nodeBody[node] = body;
+                nextBody[body] = -1;
+                return;
+            } else if (depth >= MAX_DEPTH) {
+                // Coincident or nearly coincident bodies share one leaf
+                nextBody[body] = occupant;
+                nodeBody[node] = body;
+                return;
+            } else {
+                // Split the leaf and push its body one level down, then retry
+                nodeBody[node] = INTERNAL;
+                int octant = octant(node, px[occupant], py[occupant], pz[occupant]);
+                int child = newChild(node, octant);
+                nodeBody[child] = occupant;
+            }
+        }
+    }
+
+    /**
+     * Accumulates total G·m and centre of mass bottom-up. Children are always
+     * allocated after their parent, so a reverse sweep sees every child first.
+     */
+    private void computeMoments() {
+        Arrays.fill(nodeGm, 0, nodeCount, 0);
+        Arrays.fill(comX, 0, nodeCount, 0);
+        Arrays.fill(comY, 0, nodeCount, 0);
+        Arrays.fill(comZ, 0, nodeCount, 0);
+
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int body = nodeBody[node];
+            if (body >= 0) {
+                for (int b = body; b >= 0; b = nextBody[b]) {
+                    nodeGm[node] += gm[b];
+                    comX[node] += gm[b] * px[b];
+                    comY[node] += gm[b] * py[b];
+                    comZ[node] += gm[b] * pz[b];
+                }
+            }
+
+            double m = nodeGm[node];
+            if (m > 0) {
+                int parent = nodeParent[node];
+                if (parent >= 0) {
+                    nodeGm[parent] += m;
+                    comX[parent] += comX[node];
+                    comY[parent] += comY[node];
+                    comZ[parent] += comZ[node];
+                }
+                comX[node] /= m;
+                comY[node] /= m;
+                comZ[node] /= m;
+            }
+        }
+    }
+
+    /** Computes the acceleration of one body by walking the tree. */
+    private void walk(int i) {
+        double xi = px[i], yi = py[i], zi = pz[i];
+        double thetaSq = theta * theta;
+        double sumX = 0, sumY = 0, sumZ = 0;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            double m = nodeGm[node];
+            if (m == 0) continue;
+
+            int body = nodeBody[node];
+            if (body >= 0) {
+                for (int b = body; b >= 0; b = nextBody[b]) {
+                    if (b == i) continue;
+                    double dx = px[b] - xi;
+                    double dy = py[b] - yi;
+                    double dz = pz[b] - zi;
+                    double r2 = dx * dx + dy * dy + dz * dz;
+                    if (r2 == 0) continue;
+                    double f = gm[b] / (r2 * Math.sqrt(r2));
+                    sumX += dx * f;
+                    sumY += dy * f;
+                    sumZ += dz * f;
+                }
+                continue;
+            }
+
+            double dx = comX[node] - xi;
+            double dy = comY[node] - yi;
+            double dz = comZ[node] - zi;
+            double r2 = dx * dx + dy * dy + dz * dz;
+            double size = 2 * cellHalf[node];
+
+            if (size * size < thetaSq * r2 && !contains(node, xi, yi, zi)) {
+                double f = m / (r2 * Math.sqrt(r2));
+                sumX += dx * f;
+                sumY += dy * f;
+                sumZ += dz * f;
+            } else {
+                for (int k = 0; k < 8; k++) {
+                    int child = nodeChild[node * 8 + k];
+                    if (child >= 0) stack[top++] = child;
+                }
+            }
+        }
+
+        ax[i] = sumX;
+        ay[i] = sumY;
+        az[i] = sumZ;
+    }
+
+    private boolean contains(int node, double x, double y, double z) {
+        double h = cellHalf[node];
+        return Math.abs(x - cellX[node]) <= h
+                && Math.abs(y - cellY[node]) <= h
+                && Math.abs(z - cellZ[node]) <= h;
+    }
+
+    private int octant(int node, double x, double y, double z) {
+        return (x >= cellX[node] ? 1 : 0)
+                | (y >= cellY[node] ? 2 : 0)
+                | (z >= cellZ[node] ? 4 : 0);
+    }
+
+    private int newChild(int parent, int octant) {
+        double h = 0.5 * cellHalf[parent];
+        double cx = cellX[parent] + ((octant & 1) != 0 ? h : -h);
+        double cy = cellY[parent] + ((octant & 2) != 0 ? h : -h);
+        double cz = cellZ[parent] + ((octant & 4) != 0 ? h : -h);
+        int child = newNode(parent, cx, cy, cz, h);
+        nodeChild[parent * 8 + octant] = child;
+        return child;
+    }
+
+    private int newNode(int parent, double cx, double cy, double cz, double half) {
+        if (nodeCount == nodeBody.length) {
+            allocateNodes(2 * nodeBody.length);
+        }
+        int node = nodeCount++;
+        nodeBody[node] = EMPTY;
+        nodeParent[node] = parent;
+        Arrays.fill(nodeChild, node * 8, node * 8 + 8, -1);
+        cellX[node] = cx;
+        cellY[node] = cy;
+        cellZ[node] = cz;
+        cellHalf[node] = half;
+        return node;
+    }
+
+    /** Grows the node arrays to the given capacity, keeping existing nodes. */
+    private void allocateNodes(int capacity) {
+        int old = nodeBody == null ? 0 : nodeBody.length;
+        if (capacity <= old) return;
+
+        nodeBody = old == 0 ? new int[capacity] : Arrays.copyOf(nodeBody, capacity);
+        nodeParent = old == 0 ? new int[capacity] : Arrays.copyOf(nodeParent, capacity);
+        nodeChild = old == 0 ? new int[8 * capacity] : Arrays.copyOf(nodeChild, 8 * capacity);
+        cellX = old == 0 ? new double[capacity] : Arrays.copyOf(cellX, capacity);
+        cellY = old == 0 ? new double[capacity] : Arrays.copyOf(cellY, capacity);
+        cellZ = old == 0 ? new double[capacity] : Arrays.copyOf(cellZ, capacity);
+        cellHalf = old == 0 ? new double[capacity] : Arrays.copyOf(cellHalf, capacity);
+        nodeGm = new double[capacity];
+        comX = new double[capacity];
+        comY = new double[capacity];
+        comZ = new double[capacity];
+    }
+}
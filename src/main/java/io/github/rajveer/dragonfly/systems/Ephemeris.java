@@ -0,0 +1,212 @@
+package io.github.rajveer.dragonfly.systems;
+
+import io.github.rajveer.dragonfly.ode.ODESolver;
+
+/**
+ * Precomputed trajectories of the massive bodies of a {@link GravitySystem}.
+ * <p>
+ * The system is integrated once over a fixed span and position, velocity and
+ * acceleration of every body are stored at each step. Between two nodes the motion
+ * is a quintic Hermite polynomial matching all three quantities at both ends, so the
+ * interpolant is continuous up to the acceleration and sixth-order accurate in the
+ * node spacing. Lookups are O(M) and allocation-free.
+ * <p>
+ * An ephemeris is immutable once built and may be shared between threads.
+ */
+public final class Ephemeris {
+
+    /** Values stored per body and node: position, velocity and acceleration. */
+    private static final int STRIDE = 9;
+
+    private final int numBodies;
+    private final double[] gm;
+    private final double t0;
+    private final double dt;
+    private final int steps;
+
+    /** Node data laid out as [node][body][x, y, z, vx, vy, vz, ax, ay, az]. */
+    private final double[] nodes;
+
+    private Ephemeris(int numBodies, double[] gm, double t0, double dt, int steps, double[] nodes) {
+        this.numBodies = numBodies;
+        this.gm = gm;
+        this.t0 = t0;
+        this.dt = dt;
+        this.steps = steps;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Integrates a gravity system and records an ephemeris of its bodies.
+     *
+     * @param system the system to integrate; must not contain test particles
+     * @param y0     initial state of length 6N
+     * @param t0     initial time in seconds
+     * @param dt     step size and node spacing in seconds
+     * @param steps  number of steps; the ephemeris covers [t0, t0 + steps·dt]
+     * @param solver solver used for the integration
+     * @return the recorded ephemeris
+     */
+    public static Ephemeris integrate(GravitySystem system, double[] y0, double t0, double dt,
+                                      int steps, ODESolver solver) {
+        int n = system.getNumBodies();
+        if (system.getNumTestParticles() != 0) {
+            throw new IllegalArgumentException("Ephemeris systems must not contain test particles");
+        }
+        if (y0.length != 6 * n) {
+            throw new IllegalArgumentException("State length " + y0.length + " does not match " + n + " bodies");
+        }
+        if (!(dt > 0) || steps < 1) {
+            throw new IllegalArgumentException("Invalid span: dt=" + dt + ", steps=" + steps);
+        }
+
+        double[] gm = new double[n];
+        for (int i = 0; i < n; i++) {
+            gm[i] = system.getGravitationalParameter(i);
+        }
+
+        double[] nodes = new double[(steps + 1) * n * STRIDE];
+        double[] y = y0.clone();
+        double[] next = new double[y.length];
+        double[] acc = new double[3 * n];
+
+        for (int k = 0; ; k++) {
+            double t = t0 + k * dt;
+            system.computeAccelerationInto(t, y, acc);
+            int base = k * n * STRIDE;
+            for (int i = 0; i < n; i++) {
+                int node = base + i * STRIDE;
+                System.arraycopy(y, 6 * i, nodes, node, 6);
+                System.arraycopy(acc, 3 * i, nodes, node + 6, 3);
+            }
+            if (k == steps) break;
+
+            solver.stepInto(system, t, y, dt, next);
+            double[] swap = y;
+            y = next;
+            next = swap;
+        }
+
+        return new Ephemeris(n, gm, t0, dt, steps, nodes);
+    }
+
+    /**
+     * Returns the number of bodies in the ephemeris.
+     *
+     * @return the body count
+     */
+    public int getNumBodies() {
+        return numBodies;
+    }
+
+    /**
+     * Returns the gravitational parameter of a body.
+     *
+     * @param body the body index
+     * @return G·m in km³·s⁻²
+     */
+    public double getGravitationalParameter(int body) {
+        return gm[body];
+    }
+
+    /**
+     * Returns the first time covered.
+     *
+     * @return the start time in seconds
+     */
+    public double getStartTime() {
+        return t0;
+    }
+
+    /**
+     * Returns the last time covered.
+     *
+     * @return the end time in seconds
+     */
+    public double getEndTime() {
+        return t0 + steps * dt;
+    }
+
+    /**
+     * Interpolates the positions of all bodies.
+     *
+     * @param t   time within [{@link #getStartTime()}, {@link #getEndTime()}]
+     * @param out receives the positions, 3 values per body (length 3N)
+     */
+    public void positionsInto(double t, double[] out) {
+        int k = segment(t);
+        double h = dt;
+        double s = (t - (t0 + k * dt)) / h;
+        double s2 = s * s, s3 = s2 * s, s4 = s3 * s, s5 = s4 * s;
+
+        // Quintic Hermite basis for p0, v0, a0 and p1, v1, a1
+        double hp0 = 1 - 10 * s3 + 15 * s4 - 6 * s5;
+        double hv0 = h * (s - 6 * s3 + 8 * s4 - 3 * s5);
+        double ha0 = h * h * (0.5 * s2 - 1.5 * s3 + 1.5 * s4 - 0.5 * s5);
+        double hp1 = 10 * s3 - 15 * s4 + 6 * s5;
+        double hv1 = h * (-4 * s3 + 7 * s4 - 3 * s5);
+        double ha1 = h * h * (0.5 * s3 - s4 + 0.5 * s5);
+
+        int a = k * numBodies * STRIDE;
+        int b = a + numBodies * STRIDE;
+        for (int i = 0; i < numBodies; i++) {
+            int na = a + i * STRIDE;
+            int nb = b + i * STRIDE;
+            for (int c = 0; c < 3; c++) {
+                out[3 * i + c] = hp0 * nodes[na + c] + hv0 * nodes[na + 3 + c] + ha0 * nodes[na + 6 + c]
+                        + hp1 * nodes[nb + c] + hv1 * nodes[nb + 3 + c] + ha1 * nodes[nb + 6 + c];
+            }
+        }
+    }
+
+    /**
+     * Interpolates positions and velocities of all bodies.
+     *
+     * @param t   time within [{@link #getStartTime()}, {@link #getEndTime()}]
+     * @param out receives the state in the N-body layout, 6 values per body (length 6N)
+     */
+    public void stateInto(double t, double[] out) {
+        int k = segment(t);
+        double h = dt;
+        double s = (t - (t0 + k * dt)) / h;
+        double s2 = s * s, s3 = s2 * s, s4 = s3 * s, s5 = s4 * s;
+
+        double hp0 = 1 - 10 * s3 + 15 * s4 - 6 * s5;
+        double hv0 = h * (s - 6 * s3 + 8 * s4 - 3 * s5);
+        double ha0 = h * h * (0.5 * s2 - 1.5 * s3 + 1.5 * s4 - 0.5 * s5);
+        double hp1 = 10 * s3 - 15 * s4 + 6 * s5;
+        double hv1 = h * (-4 * s3 + 7 * s4 - 3 * s5);
+        double ha1 = h * h * (0.5 * s3 - s4 + 0.5 * s5);
+
+        // Derivatives of the basis with respect to t
+        double dp0 = (-30 * s2 + 60 * s3 - 30 * s4) / h;
+        double dv0 = 1 - 18 * s2 + 32 * s3 - 15 * s4;
+        double da0 = h * (s - 4.5 * s2 + 6 * s3 - 2.5 * s4);
+        double dp1 = (30 * s2 - 60 * s3 + 30 * s4) / h;
+        double dv1 = -12 * s2 + 28 * s3 - 15 * s4;
+        double da1 = h * (1.5 * s2 - 4 * s3 + 2.5 * s4);
+
+        int a = k * numBodies * STRIDE;
+        int b = a + numBodies * STRIDE;
+        for (int i = 0; i < numBodies; i++) {
+            int na = a + i * STRIDE;
+            int nb = b + i * STRIDE;
+            for (int c = 0; c < 3; c++) {
+                double p0 = nodes[na + c], v0 = nodes[na + 3 + c], a0 = nodes[na + 6 + c];
+                double p1 = nodes[nb + c], v1 = nodes[nb + 3 + c], a1 = nodes[nb + 6 + c];
+                out[6 * i + c] = hp0 * p0 + hv0 * v0 + ha0 * a0 + hp1 * p1 + hv1 * v1 + ha1 * a1;
+                out[6 * i + 3 + c] = dp0 * p0 + dv0 * v0 + da0 * a0 + dp1 * p1 + dv1 * v1 + da1 * a1;
+            }
+        }
+    }
+
+    /** Returns the index of the segment containing t, the last one for t at the end. */
+    private int segment(double t) {
+        double u = (t - t0) / dt;
+        if (!(u >= 0 && u <= steps)) {
+            throw new IllegalArgumentException("Time " + t + " outside ephemeris span ["
+                    + t0 + ", " + getEndTime() + "]");
+        }
+        return Math.min((int) u, steps - 1);
+    }
+}
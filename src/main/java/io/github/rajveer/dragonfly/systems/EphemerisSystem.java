@@ -0,0 +1,112 @@
+package io.github.rajveer.dragonfly.systems;
+
+import io.github.rajveer.dragonfly.utils.Vector;
+
+/**
+ * Massless test particles moving in the field of bodies whose trajectories are
+ * given by an {@link Ephemeris}.
+ * <p>
+ * The state holds the test particles only, in the N-body layout of 6 values per
+ * particle. Every evaluation interpolates the body positions at t instead of
+ * integrating them, so a particle costs O(M) per call and nothing about the bodies
+ * is recomputed between runs. Any number of particles may be integrated at once;
+ * the count follows from the state length.
+ * <p>
+ * The interpolated positions are kept for the last time requested, so evaluations
+ * at a repeated t, such as the two RK4 midpoint stages or the end of one step and
+ * the start of the next, interpolate only once. The buffer is reused between calls,
+ * so an instance must not be shared between threads. The ephemeris itself may be.
+ */
+public class EphemerisSystem implements SeparableSystem {
+
+    private final Ephemeris ephemeris;
+    private final int numSources;
+    private final double[] gm;
+    private final double[] bodyPos;
+    private double bodyTime = Double.NaN;
+
+    /**
+     * Constructs a test-particle system in the field of the given ephemeris.
+     *
+     * @param ephemeris trajectories of the attracting bodies
+     */
+    public EphemerisSystem(Ephemeris ephemeris) {
+        this.ephemeris = ephemeris;
+        this.numSources = ephemeris.getNumBodies();
+        this.gm = new double[numSources];
+        for (int i = 0; i < numSources; i++) {
+            gm[i] = ephemeris.getGravitationalParameter(i);
+        }
+        this.bodyPos = new double[3 * numSources];
+    }
+
+    /**
+     * Returns the ephemeris providing the field.
+     *
+     * @return the ephemeris
+     */
+    public Ephemeris getEphemeris() {
+        return ephemeris;
+    }
+
+    @Override
+    public Vector computeDerivative(double t, Vector y) {
+        double[] dydt = new double[y.length()];
+        computeDerivativeInto(t, y.toArray(), dydt);
+        return new Vector(dydt);
+    }
+
+    @Override
+    public void computeDerivativeInto(double t, double[] y, double[] dydt) {
+        updateBodies(t);
+        int particles = y.length / 6;
+        for (int p = 0; p < particles; p++) {
+            int posIndex = p * 6;
+            int velIndex = posIndex + 3;
+            dydt[posIndex] = y[velIndex];
+            dydt[posIndex + 1] = y[velIndex + 1];
+            dydt[posIndex + 2] = y[velIndex + 2];
+            accelerate(y, posIndex, dydt, velIndex);
+        }
+    }
+
+    @Override
+    public void computeAccelerationInto(double t, double[] y, double[] acc) {
+        updateBodies(t);
+        int particles = y.length / 6;
+        for (int p = 0; p < particles; p++) {
+            accelerate(y, p * 6, acc, p * 3);
+        }
+    }
+
+    private void updateBodies(double t) {
+        if (t != bodyTime) {
+            ephemeris.positionsInto(t, bodyPos);
+            bodyTime = t;
+        }
+    }
+
+    /** Sums the attraction of all bodies on the particle at {@code y[from]}. */
+    private void accelerate(double[] y, int from, double[] out, int to) {
+        double xi = y[from], yi = y[from + 1], zi = y[from + 2];
+        double axi = 0, ayi = 0, azi = 0;
+
+        for (int j = 0; j < numSources; j++) {
+            double dx = bodyPos[3 * j] - xi;
+            double dy = bodyPos[3 * j + 1] - yi;
+            double dz = bodyPos[3 * j + 2] - zi;
+
+            double r2 = dx * dx + dy * dy + dz * dz;
+            if (r2 == 0) continue;
+
+            double f = gm[j] / (r2 * Math.sqrt(r2));
+            axi += dx * f;
+            ayi += dy * f;
+            azi += dz * f;
+        }
+
+        out[to] = axi;
+        out[to + 1] = ayi;
+        out[to + 2] = azi;
+    }
+}
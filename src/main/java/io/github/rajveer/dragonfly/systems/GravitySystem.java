@@ -0,0 +1,208 @@
+package io.github.rajveer.dragonfly.systems;
+
+import io.github.rajveer.dragonfly.utils.Vector;
+
+import java.util.List;
+
+/**
+ * Base class for N-body systems under Newtonian gravity.
+ * <p>
+ * The state vector uses the same layout as {@link SolarSystem}: 6 values per body,
+ * position (x, y, z) followed by velocity (vx, vy, vz). On every derivative call the
+ * positions are gathered into flat structure-of-arrays buffers, a subclass computes
+ * the accelerations into the matching output buffers, and the result is scattered
+ * back into the interleaved derivative.
+ * <p>
+ * Masses are stored pre-multiplied by {@link #G}. When {@code fixedSun} is set, the
+ * body at index 0 is kept static: it still attracts the other bodies but its own
+ * derivative is zero.
+ * <p>
+ * The state may end with massless test particles, such as candidate probes, after
+ * the {@link #getNumMassive() massive} bodies. Test particles are attracted by the
+ * massive bodies but exert no force themselves, so they cost O(M) each instead of
+ * adding a row and a column to the O(N²) interaction.
+ * <p>
+ * The buffers are reused between calls, so an instance must not be shared between
+ * threads.
+ */
+public abstract class GravitySystem implements SeparableSystem {
+
+    /**
+     * Gravitational constant in km³·kg⁻¹·s⁻².
+     */
+    public static final double G = 6.67430e-20;
+
+    /** Number of bodies in the state vector, test particles included. */
+    protected final int numBodies;
+
+    /** Number of massive bodies; test particles occupy the indices after them. */
+    protected final int numMassive;
+
+    /** Gravitational parameter G·m of each body in km³·s⁻², zero for test particles. */
+    protected final double[] gm;
+
+    /** Whether body 0 is held fixed. */
+    protected final boolean fixedSun;
+
+    /** Gathered body positions. */
+    protected final double[] px, py, pz;
+
+    /** Accelerations written by {@link #computeAccelerations()}. */
+    protected final double[] ax, ay, az;
+
+    /**
+     * Constructs a gravity system for the given masses.
+     *
+     * @param masses   body masses in kilograms, in the same order as the state vector
+     * @param fixedSun whether body 0 is kept static
+     */
+    protected GravitySystem(List<Double> masses, boolean fixedSun) {
+        this(masses, 0, fixedSun);
+    }
+
+    /**
+     * Constructs a gravity system for the given masses followed by massless test
+     * particles.
+     *
+     * @param masses           massive body masses in kilograms, in the same order as the state vector
+     * @param numTestParticles number of test particles appended after the massive bodies
+     * @param fixedSun         whether body 0 is kept static
+     */
+    protected GravitySystem(List<Double> masses, int numTestParticles, boolean fixedSun) {
+        if (numTestParticles < 0) {
+            throw new IllegalArgumentException("Test particle count must be non-negative: " + numTestParticles);
+        }
+        this.numMassive = masses.size();
+        this.numBodies = numMassive + numTestParticles;
+        this.fixedSun = fixedSun;
+        this.gm = new double[numBodies];
+        for (int i = 0; i < numMassive; i++) {
+            gm[i] = G * masses.get(i);
+        }
+
+        this.px = new double[numBodies];
+        this.py = new double[numBodies];
+        this.pz = new double[numBodies];
+        this.ax = new double[numBodies];
+        this.ay = new double[numBodies];
+        this.az = new double[numBodies];
+    }
+
+    /**
+     * Returns the number of bodies this system integrates.
+     *
+     * @return the body count N; the state vector has length 6N
+     */
+    public int getNumBodies() {
+        return numBodies;
+    }
+
+    /**
+     * Returns the number of massive bodies, which come first in the state vector.
+     *
+     * @return the massive body count M
+     */
+    public int getNumMassive() {
+        return numMassive;
+    }
+
+    /**
+     * Returns the number of massless test particles following the massive bodies.
+     *
+     * @return the test particle count P = N - M
+     */
+    public int getNumTestParticles() {
+        return numBodies - numMassive;
+    }
+
+    /**
+     * Returns whether body 0 is held fixed.
+     *
+     * @return true if the Sun does not move
+     */
+    public boolean isFixedSun() {
+        return fixedSun;
+    }
+
+    /**
+     * Returns the gravitational parameter of a body.
+     *
+     * @param body the body index
+     * @return G·m in km³·s⁻²
+     */
+    public double getGravitationalParameter(int body) {
+        return gm[body];
+    }
+
+    @Override
+    public boolean isBodyFixed(int body) {
+        return fixedSun && body == 0;
+    }
+
+    @Override
+    public Vector computeDerivative(double t, Vector y) {
+        double[] dydt = new double[y.length()];
+        computeDerivativeInto(t, y.toArray(), dydt);
+        return new Vector(dydt);
+    }
+
+    @Override
+    public void computeDerivativeInto(double t, double[] y, double[] dydt) {
+        gatherPositions(y);
+        computeAccelerations();
+
+        for (int i = 0; i < numBodies; i++) {
+            int posIndex = i * 6;
+            int velIndex = posIndex + 3;
+
+            // Derivative of position is the velocity, of velocity the acceleration
+            dydt[posIndex] = y[velIndex];
+            dydt[posIndex + 1] = y[velIndex + 1];
+            dydt[posIndex + 2] = y[velIndex + 2];
+            dydt[velIndex] = ax[i];
+            dydt[velIndex + 1] = ay[i];
+            dydt[velIndex + 2] = az[i];
+        }
+
+        if (fixedSun && numBodies > 0) {
+            for (int k = 0; k < 6; k++) {
+                dydt[k] = 0;
+            }
+        }
+    }
+
+    @Override
+    public void computeAccelerationInto(double t, double[] y, double[] acc) {
+        gatherPositions(y);
+        computeAccelerations();
+
+        for (int i = 0; i < numBodies; i++) {
+            acc[3 * i] = ax[i];
+            acc[3 * i + 1] = ay[i];
+            acc[3 * i + 2] = az[i];
+        }
+
+        if (fixedSun && numBodies > 0) {
+            acc[0] = 0;
+            acc[1] = 0;
+            acc[2] = 0;
+        }
+    }
+
+    private void gatherPositions(double[] y) {
+        for (int i = 0; i < numBodies; i++) {
+            int posIndex = i * 6;
+            px[i] = y[posIndex];
+            py[i] = y[posIndex + 1];
+            pz[i] = y[posIndex + 2];
+        }
+    }
+
+    /**
+     * Computes the gravitational acceleration of every body from the gathered
+     * positions {@link #px}, {@link #py}, {@link #pz} into {@link #ax}, {@link #ay},
+     * {@link #az}. Coincident bodies must not contribute to each other, and only the
+     * first {@link #numMassive} bodies are sources of gravity.
+     */
+    protected abstract void computeAccelerations();
+}
@@ -17,4 +17,23 @@ public interface ODESystem {
      */
     Vector computeDerivative(double t, Vector y);
 
+    /**
+     * Computes the derivative of the system into a caller-supplied buffer.
+     * <p>
+     * This is the allocation-free counterpart of {@link #computeDerivative(double, Vector)}
+     * used by {@link io.github.rajveer.dragonfly.ode.ODESolver#stepInto}. The default
+     * implementation adapts the {@code Vector} based method; systems on a hot path
+     * should override it and implement {@code computeDerivative} as the adapter instead.
+     *
+     * @param t    current time
+     * @param y    current state y(t), not modified
+     * @param dydt output buffer of the same length as {@code y}, receives dy/dt
+     */
+    default void computeDerivativeInto(double t, double[] y, double[] dydt) {
+        Vector dy = computeDerivative(t, new Vector(y));
+        for (int i = 0; i < dydt.length; i++) {
+            dydt[i] = dy.get(i);
+        }
+    }
+
 }
@@ -0,0 +1,31 @@
+package io.github.rajveer.dragonfly.systems;
+
+/**
+ * A second-order system with a separable Hamiltonian H(q, p) = T(p) + V(q), where
+ * the acceleration depends on positions only.
+ * <p>
+ * The state uses the N-body layout: 6 values per body, position (x, y, z)
+ * followed by velocity (vx, vy, vz). Symplectic solvers advance such systems by
+ * alternating position drifts and velocity kicks.
+ */
+public interface SeparableSystem extends ODESystem {
+
+    /**
+     * Computes the acceleration of every body for the positions in {@code y}.
+     *
+     * @param t   current time
+     * @param y   current state of length 6N; only the positions are read
+     * @param acc receives the accelerations, 3 values per body (length 3N)
+     */
+    void computeAccelerationInto(double t, double[] y, double[] acc);
+
+    /**
+     * Returns whether a body is held fixed, i.e. must not be drifted.
+     *
+     * @param body the body index
+     * @return true if the body's position never changes
+     */
+    default boolean isBodyFixed(int body) {
+        return false;
+    }
+}
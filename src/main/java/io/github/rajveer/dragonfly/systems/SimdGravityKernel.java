@@ -0,0 +1,83 @@
+package io.github.rajveer.dragonfly.systems;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernel behind {@link SimdGravitySystem}. Kept in its own class so the
+ * incubator types are only linked when the module is actually present.
+ */
+final class SimdGravityKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private SimdGravityKernel() {
+    }
+
+    /**
+     * Computes the acceleration of every body from the first {@code sources} bodies,
+     * overwriting the acceleration buffers. Coincident bodies, including i itself,
+     * are masked out.
+     *
+     * @param n       number of bodies
+     * @param sources number of massive bodies acting as sources
+     * @param px      x positions
+     * @param py      y positions
+     * @param pz      z positions
+     * @param gm      gravitational parameters G·m
+     * @param ax      receives x accelerations
+     * @param ay      receives y accelerations
+     * @param az      receives z accelerations
+     */
+    static void accumulate(int n, int sources, double[] px, double[] py, double[] pz, double[] gm,
+                           double[] ax, double[] ay, double[] az) {
+        int upper = SPECIES.loopBound(sources);
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+
+        for (int i = 0; i < n; i++) {
+            double xi = px[i], yi = py[i], zi = pz[i];
+            DoubleVector sumX = zero, sumY = zero, sumZ = zero;
+
+            int j = 0;
+            for (; j < upper; j += SPECIES.length()) {
+                DoubleVector dx = DoubleVector.fromArray(SPECIES, px, j).sub(xi);
+                DoubleVector dy = DoubleVector.fromArray(SPECIES, py, j).sub(yi);
+                DoubleVector dz = DoubleVector.fromArray(SPECIES, pz, j).sub(zi);
+
+                DoubleVector r2 = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+                VectorMask<Double> coincident = r2.compare(VectorOperators.EQ, 0);
+
+                DoubleVector f = DoubleVector.fromArray(SPECIES, gm, j)
+                        .div(r2.mul(r2.sqrt()))
+                        .blend(0, coincident);
+
+                sumX = dx.fma(f, sumX);
+                sumY = dy.fma(f, sumY);
+                sumZ = dz.fma(f, sumZ);
+            }
+
+            double axi = sumX.reduceLanes(VectorOperators.ADD);
+            double ayi = sumY.reduceLanes(VectorOperators.ADD);
+            double azi = sumZ.reduceLanes(VectorOperators.ADD);
+
+            // Scalar tail
+            for (; j < sources; j++) {
+                double dx = px[j] - xi;
+                double dy = py[j] - yi;
+                double dz = pz[j] - zi;
+                double r2 = dx * dx + dy * dy + dz * dz;
+                if (r2 == 0) continue;
+                double f = gm[j] / (r2 * Math.sqrt(r2));
+                axi += dx * f;
+                ayi += dy * f;
+                azi += dz * f;
+            }
+
+            ax[i] = axi;
+            ay[i] = ayi;
+            az[i] = azi;
+        }
+    }
+}
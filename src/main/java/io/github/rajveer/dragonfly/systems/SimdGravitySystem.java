@@ -0,0 +1,78 @@
+package io.github.rajveer.dragonfly.systems;
+
+import java.util.List;
+
+/**
+ * N-body gravity evaluated with SIMD lanes from the JDK Vector API
+ * ({@code jdk.incubator.vector}).
+ * <p>
+ * For every body i the kernel sweeps all bodies j in lane-sized chunks, computing
+ * the separations, r² and G·m/r³ terms for a whole chunk at once, and finishes the
+ * remainder with scalar code. Unlike {@link SolarSystem} every ordered pair is
+ * visited, because scattering Newton's-third-law updates back to j would defeat
+ * the vectorisation; the lanes more than make up for the doubled work. Test
+ * particles are swept over the massive bodies only.
+ * <p>
+ * The incubator module is optional. It must be resolved at runtime, e.g. with
+ * {@code --add-modules jdk.incubator.vector}; when it is not, this system falls back
+ * to the scalar pairwise kernel and produces the same results.
+ */
+public class SimdGravitySystem extends GravitySystem {
+
+    /** Whether the Vector API module is resolved in this JVM. */
+    private static final boolean SIMD_AVAILABLE = ModuleLayer.boot()
+            .findModule("jdk.incubator.vector")
+            .isPresent();
+
+    /**
+     * Constructs a SIMD gravity system with a fixed Sun.
+     *
+     * @param masses list of body masses in kilograms, in the same order as the state vector
+     */
+    public SimdGravitySystem(List<Double> masses) {
+        this(masses, true);
+    }
+
+    /**
+     * Constructs a SIMD gravity system.
+     *
+     * @param masses   list of body masses in kilograms, in the same order as the state vector
+     * @param fixedSun whether the Sun (index 0) is kept static
+     */
+    public SimdGravitySystem(List<Double> masses, boolean fixedSun) {
+        super(masses, fixedSun);
+    }
+
+    /**
+     * Constructs a SIMD gravity system with massless test particles appended after
+     * the massive bodies.
+     *
+     * @param masses           list of massive body masses in kilograms, in the same order as the state vector
+     * @param numTestParticles number of massless test particles following the massive bodies
+     * @param fixedSun         whether the Sun (index 0) is kept static
+     */
+    public SimdGravitySystem(List<Double> masses, int numTestParticles, boolean fixedSun) {
+        super(masses, numTestParticles, fixedSun);
+    }
+
+    /**
+     * Returns whether the vectorised kernel is used, i.e. whether the
+     * {@code jdk.incubator.vector} module is available.
+     *
+     * @return true if computations run on SIMD lanes
+     */
+    public static boolean isSimdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    @Override
+    protected void computeAccelerations() {
+        if (SIMD_AVAILABLE) {
+            // Only touched when the module is present, so the class links safely
+            SimdGravityKernel.accumulate(numBodies, numMassive, px, py, pz, gm, ax, ay, az);
+        } else {
+            SolarSystem.accumulatePairs(numMassive, px, py, pz, gm, ax, ay, az);
+            SolarSystem.accumulateTestParticles(numMassive, numBodies, numMassive, px, py, pz, gm, ax, ay, az);
+        }
+    }
+}
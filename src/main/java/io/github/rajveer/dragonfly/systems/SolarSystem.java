@@ -1,7 +1,10 @@
 package io.github.rajveer.dragonfly.systems;
 
-import io.github.rajveer.dragonfly.utils.Vector;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Represents an N-body solar system simulation under Newtonian gravity.
@@ -11,102 +14,349 @@ import java.util.List;
  * between each pair of bodies is computed, and the resulting accelerations are used
  * to compute derivatives of the state.
  * <p>
+ * Each unordered pair is visited once and Newton's third law applies the force to
+ * both bodies, so one square root and one division serve two accelerations.
+ * <p>
+ * For large body counts the pair loop can run on a {@link ForkJoinPool}, see
+ * {@link #setParallel(ForkJoinPool, int)}. The rows of the triangular pair loop are
+ * split into one block per worker with roughly equal pair counts; every block
+ * accumulates into its own partial buffers, which are then summed per body.
+ * The partition and the reduction order are fixed, so results are reproducible
+ * regardless of scheduling.
+ * <p>
+ * Massless test particles appended after the massive bodies only feel the massive
+ * bodies, in O(M·P); see {@link #SolarSystem(List, int, boolean)}. In parallel mode
+ * they are split into contiguous blocks that write their accelerations directly.
+ * <p>
  * The system supports any number of bodies, with masses provided at construction.
- * Note: In the current implementation, the Sun (index 0) is kept static and does not move.
+ * Note: By default the Sun (index 0) is kept static and does not move.
  */
-public class SolarSystem implements ODESystem {
+public class SolarSystem extends GravitySystem {
+
+    /** Default body count from which parallel evaluation pays off. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    /** Pool for parallel evaluation, or null to always stay serial. */
+    private ForkJoinPool pool;
+
+    /** Body count below which evaluation stays serial even with a pool. */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** First row of each block; blockStart[b + 1] ends block b. */
+    private int[] blockStart;
+
+    /** Per-block partial accelerations of the massive bodies, laid out as [x(M), y(M), z(M)]. */
+    private double[][] partial;
 
     /**
-     * Gravitational constant in km³·kg⁻¹·s⁻².
+     * Constructs a new solar system with the specified masses and a fixed Sun.
+     *
+     * @param masses list of body masses in kilograms, in the same order as the state vector
      */
-    private static final double G = 6.67430e-20;
+    public SolarSystem(List<Double> masses) {
+        this(masses, true);
+    }
 
     /**
-     * List of masses for each celestial body in kilograms.
+     * Constructs a new solar system with the specified masses.
+     *
+     * @param masses   list of body masses in kilograms, in the same order as the state vector
+     * @param fixedSun whether the Sun (index 0) is kept static
      */
-    private final List<Double> masses;
+    public SolarSystem(List<Double> masses, boolean fixedSun) {
+        super(masses, fixedSun);
+    }
 
     /**
-     * Constructs a new solar system with the specified masses.
+     * Constructs a restricted N-body system: the massive bodies interact with each
+     * other, and the test particles appended after them in the state vector move in
+     * their field without attracting anything.
      *
-     * @param masses list of body masses in kilograms, in the same order as the state vector
+     * @param masses           list of massive body masses in kilograms, in the same order as the state vector
+     * @param numTestParticles number of massless test particles following the massive bodies
+     * @param fixedSun         whether the Sun (index 0) is kept static
      */
-    public SolarSystem(List<Double> masses) {
-        this.masses = masses;
+    public SolarSystem(List<Double> masses, int numTestParticles, boolean fixedSun) {
+        super(masses, numTestParticles, fixedSun);
     }
 
     /**
-     * Computes the time derivative of the state vector at time {@code t}.
-     * <p>
-     * Each body is represented by 6 values in the state vector:
-     * the first 3 are position (x, y, z), and the next 3 are velocity (vx, vy, vz).
+     * Enables parallel force evaluation on the given pool.
      *
-     * @param t the current simulation time
-     * @param y the current state vector of length 6N (N = number of bodies)
-     * @return the time derivative dy/dt, also a vector of length 6N
+     * @param pool          the pool to run on, or null to disable parallel evaluation
+     * @param bodyThreshold minimum number of bodies for which the pool is used
      */
+    public void setParallel(ForkJoinPool pool, int bodyThreshold) {
+        if (bodyThreshold < 2) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 2: " + bodyThreshold);
+        }
+        this.pool = pool;
+        this.parallelThreshold = bodyThreshold;
+        this.blockStart = null;
+        this.partial = null;
+    }
+
     @Override
-    public Vector computeDerivative(double t, Vector y) {
-        int numBodies = masses.size();
-        double[] dydt = new double[6 * numBodies];
-
-        for (int i = 0; i < numBodies; i++) {
-            int posIndex = i * 6;
-            int velIndex = posIndex + 3;
-
-            // For this implementation, the Sun (index 0) is fixed and does not move
-            if (i == 0) {
-                for (int k = 0; k < 6; k++) {
-                    dydt[posIndex + k] = 0;
+    protected void computeAccelerations() {
+        if (pool == null || numBodies < parallelThreshold) {
+            accumulatePairs(numMassive, px, py, pz, gm, ax, ay, az);
+            accumulateTestParticles(numMassive, numBodies, numMassive, px, py, pz, gm, ax, ay, az);
+            return;
+        }
+
+        if (blockStart == null) {
+            partitionRows(pool.getParallelism());
+        }
+
+        int blocks = partial.length;
+        int workers = pool.getParallelism();
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>(blocks);
+                for (int b = 0; b < blocks; b++) {
+                    tasks.add(new PairBlock(b));
+                }
+                int particles = numBodies - numMassive;
+                if (particles > 0) {
+                    int chunk = (particles + workers - 1) / workers;
+                    for (int from = numMassive; from < numBodies; from += chunk) {
+                        tasks.add(new ParticleBlock(from, Math.min(numBodies, from + chunk)));
+                    }
                 }
-                continue;
+                ForkJoinTask.invokeAll(tasks);
+
+                tasks.clear();
+                int chunk = (numMassive + blocks - 1) / blocks;
+                for (int from = 0; from < numMassive; from += chunk) {
+                    tasks.add(new ReduceBlock(from, Math.min(numMassive, from + chunk)));
+                }
+                ForkJoinTask.invokeAll(tasks);
             }
+        });
+    }
 
-            // Extract position and velocity for body i
-            Vector ri = new Vector(new double[]{
-                    y.get(posIndex),
-                    y.get(posIndex + 1),
-                    y.get(posIndex + 2)
-            });
-            Vector vi = new Vector(new double[]{
-                    y.get(velIndex),
-                    y.get(velIndex + 1),
-                    y.get(velIndex + 2)
-            });
-
-            // Derivative of position is the velocity
-            dydt[posIndex] = vi.get(0);
-            dydt[posIndex + 1] = vi.get(1);
-            dydt[posIndex + 2] = vi.get(2);
-
-            // Initialize acceleration
-            Vector ai = new Vector(new double[]{0, 0, 0});
-
-            // Compute gravitational acceleration from other bodies
-            for (int j = 0; j < numBodies; j++) {
-                if (i == j) continue;
-
-                int rjIndex = j * 6;
-                Vector rj = new Vector(new double[]{
-                        y.get(rjIndex),
-                        y.get(rjIndex + 1),
-                        y.get(rjIndex + 2)
-                });
-
-                Vector rij = rj.subtract(ri);
-                double dist = rij.magnitude();
-                if (dist == 0) continue; // Avoid division by zero
-
-                double factor = G * masses.get(j) / (dist * dist * dist);
-                ai = ai.add(rij.scale(factor));
+    /**
+     * Splits the rows of the triangular pair loop into blocks with roughly equal
+     * pair counts and allocates one partial buffer per block.
+     */
+    private void partitionRows(int parallelism) {
+        int n = numMassive;
+        int blocks = Math.max(1, Math.min(parallelism, n - 1));
+        double pairsPerBlock = (double) n * (n - 1) / 2 / blocks;
+
+        blockStart = new int[blocks + 1];
+        double pairs = 0;
+        int b = 1;
+        for (int i = 0; i < n && b < blocks; i++) {
+            pairs += n - 1 - i;
+            if (pairs >= b * pairsPerBlock) {
+                blockStart[b++] = i + 1;
             }
+        }
+        while (b <= blocks) {
+            blockStart[b++] = n;
+        }
 
-            // Derivative of velocity is the acceleration
-            dydt[velIndex] = ai.get(0);
-            dydt[velIndex + 1] = ai.get(1);
-            dydt[velIndex + 2] = ai.get(2);
+        partial = new double[blocks][3 * n];
+    }
+
+    /** Accumulates the pairs of one row block into its partial buffer. */
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private final class PairBlock extends RecursiveAction {
+        private final int block;
+
+        PairBlock(int block) {
+            this.block = block;
         }
 
-        return new Vector(dydt);
+        @Override
+        protected void compute() {
+            int n = numMassive;
+            int rowFrom = blockStart[block];
+            int rowTo = blockStart[block + 1];
+            double[] acc = partial[block];
+
+            // Rows only touch bodies at or after their own index
+            for (int k = rowFrom; k < n; k++) {
+                acc[k] = 0;
+                acc[n + k] = 0;
+                acc[2 * n + k] = 0;
+            }
+
+            for (int i = rowFrom; i < rowTo; i++) {
+                double xi = px[i], yi = py[i], zi = pz[i];
+                double gmi = gm[i];
+                double axi = 0, ayi = 0, azi = 0;
+
+                for (int j = i + 1; j < n; j++) {
+                    double dx = px[j] - xi;
+                    double dy = py[j] - yi;
+                    double dz = pz[j] - zi;
+
+                    double r2 = dx * dx + dy * dy + dz * dz;
+                    if (r2 == 0) continue;
+
+                    double inv = 1.0 / (r2 * Math.sqrt(r2));
+                    double fi = gm[j] * inv;
+                    double fj = gmi * inv;
+
+                    axi += dx * fi;
+                    ayi += dy * fi;
+                    azi += dz * fi;
+
+                    acc[j] -= dx * fj;
+                    acc[n + j] -= dy * fj;
+                    acc[2 * n + j] -= dz * fj;
+                }
+
+                acc[i] += axi;
+                acc[n + i] += ayi;
+                acc[2 * n + i] += azi;
+            }
+        }
+    }
+
+    /** Computes the accelerations of a range of test particles. */
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private final class ParticleBlock extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ParticleBlock(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            accumulateTestParticles(from, to, numMassive, px, py, pz, gm, ax, ay, az);
+        }
+    }
+
+    /** Sums the partial buffers of all blocks for a range of bodies. */
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private final class ReduceBlock extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ReduceBlock(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int n = numMassive;
+            for (int i = from; i < to; i++) {
+                double sx = 0, sy = 0, sz = 0;
+                for (int b = 0; b < partial.length; b++) {
+                    // Block b never writes to bodies before its first row
+                    if (blockStart[b] > i) break;
+                    double[] acc = partial[b];
+                    sx += acc[i];
+                    sy += acc[n + i];
+                    sz += acc[2 * n + i];
+                }
+                ax[i] = sx;
+                ay[i] = sy;
+                az[i] = sz;
+            }
+        }
+    }
+
+    /**
+     * Direct pairwise-symmetric summation over all unordered pairs (i, j), i &lt; j.
+     * Overwrites the acceleration buffers.
+     *
+     * @param n  number of bodies
+     * @param px x positions
+     * @param py y positions
+     * @param pz z positions
+     * @param gm gravitational parameters G·m
+     * @param ax receives x accelerations
+     * @param ay receives y accelerations
+     * @param az receives z accelerations
+     */
+    static void accumulatePairs(int n, double[] px, double[] py, double[] pz, double[] gm,
+                                double[] ax, double[] ay, double[] az) {
+        for (int i = 0; i < n; i++) {
+            ax[i] = 0;
+            ay[i] = 0;
+            az[i] = 0;
+        }
+
+        for (int i = 0; i < n; i++) {
+            double xi = px[i], yi = py[i], zi = pz[i];
+            double gmi = gm[i];
+            double axi = 0, ayi = 0, azi = 0;
+
+            for (int j = i + 1; j < n; j++) {
+                double dx = px[j] - xi;
+                double dy = py[j] - yi;
+                double dz = pz[j] - zi;
+
+                double r2 = dx * dx + dy * dy + dz * dz;
+                if (r2 == 0) continue; // Avoid division by zero
+
+                double inv = 1.0 / (r2 * Math.sqrt(r2));
+                double fi = gm[j] * inv;
+                double fj = gmi * inv;
+
+                axi += dx * fi;
+                ayi += dy * fi;
+                azi += dz * fi;
+
+                ax[j] -= dx * fj;
+                ay[j] -= dy * fj;
+                az[j] -= dz * fj;
+            }
+
+            ax[i] += axi;
+            ay[i] += ayi;
+            az[i] += azi;
+        }
+    }
+
+    /**
+     * Computes the accelerations of the test particles in [from, to) from the first
+     * {@code sources} bodies. Overwrites the acceleration buffers in that range.
+     *
+     * @param from    first test particle index
+     * @param to      end of the test particle range, exclusive
+     * @param sources number of massive bodies acting as sources
+     * @param px      x positions
+     * @param py      y positions
+     * @param pz      z positions
+     * @param gm      gravitational parameters G·m
+     * @param ax      receives x accelerations
+     * @param ay      receives y accelerations
+     * @param az      receives z accelerations
+     */
+    static void accumulateTestParticles(int from, int to, int sources,
+                                        double[] px, double[] py, double[] pz, double[] gm,
+                                        double[] ax, double[] ay, double[] az) {
+        for (int i = from; i < to; i++) {
+            double xi = px[i], yi = py[i], zi = pz[i];
+            double axi = 0, ayi = 0, azi = 0;
+
+            for (int j = 0; j < sources; j++) {
+                double dx = px[j] - xi;
+                double dy = py[j] - yi;
+                double dz = pz[j] - zi;
+
+                double r2 = dx * dx + dy * dy + dz * dz;
+                if (r2 == 0) continue;
+
+                double f = gm[j] / (r2 * Math.sqrt(r2));
+                axi += dx * f;
+                ayi += dy * f;
+                azi += dz * f;
+            }
+
+            ax[i] = axi;
+            ay[i] = ayi;
+            az[i] = azi;
+        }
     }
 }
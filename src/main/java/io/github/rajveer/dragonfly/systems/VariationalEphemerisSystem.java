@@ -0,0 +1,129 @@
+package io.github.rajveer.dragonfly.systems;
+
+import io.github.rajveer.dragonfly.utils.Vector;
+
+/**
+ * Test particles in the field of an {@link Ephemeris}, each integrated together
+ * with its 6×6 state transition matrix Φ = ∂y(t)/∂y(t0).
+ * <p>
+ * Every particle occupies {@link #STRIDE} values: position and velocity as in
+ * {@link EphemerisSystem}, followed by Φ in row-major order. The matrix obeys the
+ * variational equations dΦ/dt = A·Φ with
+ * <pre>
+ *     A = | 0  I |      G = ∂a/∂r = Σ G·m_j (3·d·dᵀ / |d|⁵ − I / |d|³),  d = r_j − r
+ *         | G  0 |
+ * </pre>
+ * Starting from Φ = I, a single integration yields the final state and its exact
+ * Jacobian with respect to the initial state. Integrating the augmented system with
+ * a Runge–Kutta method gives the exact derivative of the discrete trajectory, so
+ * gradients are free of the truncation and cancellation errors of finite
+ * differences.
+ * <p>
+ * The position buffer is reused between calls, so an instance must not be shared
+ * between threads. The ephemeris itself may be.
+ */
+public class VariationalEphemerisSystem implements ODESystem {
+
+    /** Number of state values per particle: 6 for the state, 36 for Φ. */
+    public static final int STRIDE = 42;
+
+    private final Ephemeris ephemeris;
+    private final int numSources;
+    private final double[] gm;
+    private final double[] bodyPos;
+    private double bodyTime = Double.NaN;
+
+    /**
+     * Constructs a variational test-particle system in the field of the given ephemeris.
+     *
+     * @param ephemeris trajectories of the attracting bodies
+     */
+    public VariationalEphemerisSystem(Ephemeris ephemeris) {
+        this.ephemeris = ephemeris;
+        this.numSources = ephemeris.getNumBodies();
+        this.gm = new double[numSources];
+        for (int i = 0; i < numSources; i++) {
+            gm[i] = ephemeris.getGravitationalParameter(i);
+        }
+        this.bodyPos = new double[3 * numSources];
+    }
+
+    /**
+     * Writes a particle's initial state and an identity transition matrix into an
+     * augmented state vector.
+     *
+     * @param y        augmented state vector
+     * @param particle particle index
+     * @param state    initial [rx, ry, rz, vx, vy, vz]
+     */
+    public static void initialise(double[] y, int particle, double[] state) {
+        int offset = particle * STRIDE;
+        System.arraycopy(state, 0, y, offset, 6);
+        for (int k = 0; k < 36; k++) {
+            y[offset + 6 + k] = k % 7 == 0 ? 1 : 0;
+        }
+    }
+
+    @Override
+    public Vector computeDerivative(double t, Vector y) {
+        double[] dydt = new double[y.length()];
+        computeDerivativeInto(t, y.toArray(), dydt);
+        return new Vector(dydt);
+    }
+
+    @Override
+    public void computeDerivativeInto(double t, double[] y, double[] dydt) {
+        if (t != bodyTime) {
+            ephemeris.positionsInto(t, bodyPos);
+            bodyTime = t;
+        }
+
+        int particles = y.length / STRIDE;
+        for (int p = 0; p < particles; p++) {
+            int offset = p * STRIDE;
+            double xi = y[offset], yi = y[offset + 1], zi = y[offset + 2];
+            double axi = 0, ayi = 0, azi = 0;
+            double gxx = 0, gxy = 0, gxz = 0, gyy = 0, gyz = 0, gzz = 0;
+
+            for (int j = 0; j < numSources; j++) {
+                double dx = bodyPos[3 * j] - xi;
+                double dy = bodyPos[3 * j + 1] - yi;
+                double dz = bodyPos[3 * j + 2] - zi;
+
+                double r2 = dx * dx + dy * dy + dz * dz;
+                if (r2 == 0) continue;
+
+                double inv3 = gm[j] / (r2 * Math.sqrt(r2));
+                double inv5 = 3 * inv3 / r2;
+                axi += dx * inv3;
+                ayi += dy * inv3;
+                azi += dz * inv3;
+
+                gxx += inv5 * dx * dx - inv3;
+                gyy += inv5 * dy * dy - inv3;
+                gzz += inv5 * dz * dz - inv3;
+                gxy += inv5 * dx * dy;
+                gxz += inv5 * dx * dz;
+                gyz += inv5 * dy * dz;
+            }
+
+            dydt[offset] = y[offset + 3];
+            dydt[offset + 1] = y[offset + 4];
+            dydt[offset + 2] = y[offset + 5];
+            dydt[offset + 3] = axi;
+            dydt[offset + 4] = ayi;
+            dydt[offset + 5] = azi;
+
+            int phi = offset + 6;
+            // Position rows of dΦ are the velocity rows of Φ
+            System.arraycopy(y, phi + 18, dydt, phi, 18);
+            // Velocity rows of dΦ are G times the position rows of Φ; G is symmetric
+            for (int c = 0; c < 6; c++) {
+                double px = y[phi + c], py = y[phi + 6 + c], pz = y[phi + 12 + c];
+                dydt[phi + 18 + c] = gxx * px + gxy * py + gxz * pz;
+                dydt[phi + 24 + c] = gxy * px + gyy * py + gyz * pz;
+                dydt[phi + 30 + c] = gxz * px + gyz * py + gzz * pz;
+            }
+        }
+    }
+}
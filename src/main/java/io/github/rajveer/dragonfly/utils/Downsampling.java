@@ -0,0 +1,103 @@
+package io.github.rajveer.dragonfly.utils;
+
+/**
+ * Downsampling of line series for display.
+ * <p>
+ * {@link #lttb} implements Largest-Triangle-Three-Buckets (Steinarsson, 2013): the
+ * first and last points are kept, the points in between are split into equal
+ * buckets, and from each bucket the point spanning the largest triangle with the
+ * point kept before it and the average of the next bucket is kept. Peaks and
+ * troughs survive, so a series reduced to a few points per pixel looks the same as
+ * the full one, at the cost of a single pass over the data.
+ */
+public final class Downsampling {
+
+    private Downsampling() {
+    }
+
+    /**
+     * Reduces a range of a series to at most {@code threshold} points.
+     *
+     * @param xs        x values
+     * @param ys        y values, as many as x values
+     * @param from      first index of the range, inclusive
+     * @param to        last index of the range, exclusive
+     * @param threshold maximum number of points to keep, at least 3
+     * @param outX      receives the kept x values, room for {@code min(threshold, to - from)}
+     * @param outY      receives the kept y values, as many as {@code outX}
+     * @return the number of points written
+     */
+    public static int lttb(double[] xs, double[] ys, int from, int to, int threshold, double[] outX, double[] outY) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("Threshold must be at least 3: " + threshold);
+        }
+        int n = to - from;
+        if (n <= threshold) {
+            System.arraycopy(xs, from, outX, 0, Math.max(0, n));
+            System.arraycopy(ys, from, outY, 0, Math.max(0, n));
+            return Math.max(0, n);
+        }
+
+        // Buckets between the fixed first and last point
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        int count = 0;
+        outX[count] = xs[a];
+        outY[count++] = ys[a];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket, or the last point for the final bucket
+            int nextStart = from + (int) ((i + 1) * every) + 1;
+            int nextEnd = Math.min(from + (int) ((i + 2) * every) + 1, to);
+            double avgX = 0, avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += xs[j];
+                avgY += ys[j];
+            }
+            int span = nextEnd - nextStart;
+            avgX /= span;
+            avgY /= span;
+
+            // Point of this bucket with the largest triangle
+            int start = from + (int) (i * every) + 1;
+            int end = nextStart;
+            double ax = xs[a], ay = ys[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgX) * (ys[j] - ay) - (ax - xs[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            outX[count] = xs[chosen];
+            outY[count++] = ys[chosen];
+            a = chosen;
+        }
+
+        outX[count] = xs[to - 1];
+        outY[count++] = ys[to - 1];
+        return count;
+    }
+
+    /**
+     * Finds the first index in a range of ascending values whose value is not less
+     * than a key.
+     *
+     * @param sorted ascending values
+     * @param from   first index of the range, inclusive
+     * @param to     last index of the range, exclusive
+     * @param key    the value to look for
+     * @return the index, or {@code to} if all values are less than the key
+     */
+    public static int lowerBound(double[] sorted, int from, int to, double key) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
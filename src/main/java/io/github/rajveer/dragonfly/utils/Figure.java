@@ -1,13 +1,27 @@
 package io.github.rajveer.dragonfly.utils;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.chart.*;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
 import javafx.stage.Stage;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * The {@code Figure} class provides a simple utility for creating and displaying
@@ -17,6 +31,13 @@ import java.util.List;
  * <p>This class extends {@link Application} and launches a single JavaFX window.
  * Currently, it supports one chart window per JVM launch.
  *
+ * <p>Series are kept as primitive columns and only a downsampled copy of the
+ * visible part is drawn, see {@link Downsampling#lttb}, so series of millions of
+ * points stay responsive. Scrolling zooms around the mouse, dragging pans and a
+ * double click shows everything again; each change downsamples anew. The default
+ * renderer is a {@link LineChart}; for the largest series the {@link Renderer#CANVAS}
+ * renderer draws straight onto a {@link Canvas} instead.
+ *
  * <p><b>Usage Example:</b>
  * <pre>
  * Figure.setTitle("Example Plot");
@@ -45,8 +66,59 @@ public class Figure extends Application {
     /** The label for the Y-axis. */
     private static String yLabel = "Y";
 
+    /** How the series are drawn. */
+    public enum Renderer {
+        /** A {@link LineChart}, fed with the downsampled points. */
+        CHART,
+        /** Polylines drawn directly onto a {@link Canvas}. */
+        CANVAS
+    }
+
+    /** Points drawn per series for every horizontal pixel of the plot. */
+    private static final int POINTS_PER_PIXEL = 2;
+
+    /** Zoom factor per scrolled pixel. */
+    private static final double ZOOM_RATE = 0.002;
+
+    /** Narrowest visible x range, in units in the last place of its bounds. */
+    private static final double MIN_WIDTH_ULPS = 1024;
+
+    /** Most grid lines drawn along one axis. */
+    private static final int MAX_TICKS = 50;
+
     /** A list to hold all the series to be plotted on the chart. */
-    private static final List<XYChart.Series<Number, Number>> seriesList = new ArrayList<>();
+    private static final List<Series> seriesList = new ArrayList<>();
+
+    /** The renderer used by {@link #show()}. */
+    private static Renderer renderer = Renderer.CHART;
+
+    /** One series as primitive columns; x is searched by bisection when ascending. */
+    private record Series(String label, double[] xs, double[] ys, boolean ascending) {
+
+        Series(String label, double[] xs, double[] ys) {
+            this(label, xs, ys, isAscending(xs));
+        }
+
+        private static boolean isAscending(double[] xs) {
+            for (int i = 1; i < xs.length; i++) {
+                if (!(xs[i] >= xs[i - 1])) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Downsamples the points within [lo, hi], plus one neighbour on each side so
+         * the line reaches the edges.
+         */
+        int downsample(double lo, double hi, int threshold, double[] outX, double[] outY) {
+            int from = 0, to = xs.length;
+            if (ascending) {
+                from = Math.max(0, Downsampling.lowerBound(xs, 0, xs.length, lo) - 1);
+                to = Math.min(xs.length, Downsampling.lowerBound(xs, from, xs.length, hi) + 1);
+            }
+            return Downsampling.lttb(xs, ys, from, to, threshold, outX, outY);
+        }
+    }
 
     /**
      * Sets the title of the chart window.
@@ -75,6 +147,15 @@ public class Figure extends Application {
         yLabel = label;
     }
 
+    /**
+     * Chooses how the series are drawn.
+     *
+     * @param choice the renderer, {@link Renderer#CHART} by default
+     */
+    public static void setRenderer(Renderer choice) {
+        renderer = choice;
+    }
+
     /**
      * Adds a new data series to the chart using a list of 2D points.
      *
@@ -89,17 +170,38 @@ public class Figure extends Application {
             throw new IllegalArgumentException("Point list cannot be null or empty");
         }
 
-        XYChart.Series<Number, Number> series = new XYChart.Series<>();
-        series.setName(label);
-
+        double[] xs = new double[pnts_xy.size()];
+        double[] ys = new double[pnts_xy.size()];
+        int i = 0;
         for (double[] point : pnts_xy) {
             if (point.length != 2) {
                 throw new IllegalArgumentException("Each point must be a double array of length 2 (x, y)");
             }
-            series.getData().add(new XYChart.Data<>(point[0], point[1]));
+            xs[i] = point[0];
+            ys[i++] = point[1];
+        }
+
+        seriesList.add(new Series(label, xs, ys));
+    }
+
+    /**
+     * Adds a new data series to the chart from separate x and y columns, such as
+     * the columns of a {@link Trajectory}. The columns are kept without copying,
+     * so they must not be changed afterwards; x values in ascending order, as in a
+     * time series, let zoomed views skip the points outside.
+     *
+     * @param label the label/name of the series
+     * @param xs    the x values
+     * @param ys    the y values, as many as x values
+     * @throws IllegalArgumentException if the columns are empty or differ in length
+     */
+    public static void addSeries(String label, double[] xs, double[] ys) {
+        if (xs.length == 0 || xs.length != ys.length) {
+            throw new IllegalArgumentException("Columns must be non-empty and of equal length: "
+                    + xs.length + " vs " + ys.length);
         }
 
-        seriesList.add(series);
+        seriesList.add(new Series(label, xs, ys));
     }
 
     /**
@@ -119,23 +221,337 @@ public class Figure extends Application {
     public void start(Stage stage) {
         stage.setTitle(chartTitle);
 
-        NumberAxis xAxis = new NumberAxis();
-        xAxis.setLabel(xLabel);
+        Region plot = renderer == Renderer.CANVAS ? new CanvasPlot() : new ChartPlot();
+        VBox vbox = new VBox(plot);
+        VBox.setVgrow(plot, Priority.ALWAYS);
+        Scene scene = new Scene(vbox, 600, 400);
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    /** Horizontal extent of all series. */
+    private static double[] dataBounds() {
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        for (Series series : seriesList) {
+            double[] xs = series.xs();
+            if (series.ascending()) {
+                lo = Math.min(lo, xs[0]);
+                hi = Math.max(hi, xs[xs.length - 1]);
+            } else {
+                for (double x : xs) {
+                    lo = Math.min(lo, x);
+                    hi = Math.max(hi, x);
+                }
+            }
+        }
+        if (!Double.isFinite(lo)) {
+            return new double[] { 0, 1 };
+        }
+        if (!(hi > lo)) {
+            // A single x value still needs a visible range
+            lo = lo - 1;
+            hi = lo + 2;
+        }
+        return new double[] { lo, hi };
+    }
+
+    /**
+     * Visible x range shared by the renderers, with scroll to zoom, drag to pan and
+     * double click to reset. Changes are reported once per pulse.
+     */
+    private static final class XWindow {
 
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel(yLabel);
+        private final double fullLo, fullHi;
+        private final Runnable onChange;
+        private double lo, hi;
+        private double dragX, dragLo, dragHi;
+        private boolean pending;
 
-        LineChart<Number, Number> lineChart = new LineChart<>(xAxis, yAxis);
-        lineChart.setTitle(chartTitle);
-        lineChart.setCreateSymbols(false); // disables hollow symbols, just lines
+        XWindow(Runnable onChange) {
+            double[] bounds = dataBounds();
+            this.fullLo = bounds[0];
+            this.fullHi = bounds[1];
+            this.lo = fullLo;
+            this.hi = fullHi;
+            this.onChange = onChange;
+        }
 
-        for (XYChart.Series<Number, Number> series : seriesList) {
-            lineChart.getData().add(series);
+        /**
+         * @param node     node receiving the mouse events
+         * @param toValue  maps an x coordinate in the node to an x value
+         * @param width    plot width in pixels, read when dragging
+         */
+        void attach(Node node, DoubleUnaryOperator toValue, DoubleSupplier width) {
+            node.addEventHandler(ScrollEvent.SCROLL, e -> {
+                double center = toValue.applyAsDouble(node.sceneToLocal(e.getSceneX(), e.getSceneY()).getX());
+                double factor = Math.exp(-e.getDeltaY() * ZOOM_RATE);
+                set(center + (lo - center) * factor, center + (hi - center) * factor);
+            });
+            node.addEventHandler(MouseEvent.MOUSE_PRESSED, e -> {
+                dragX = e.getSceneX();
+                dragLo = lo;
+                dragHi = hi;
+            });
+            node.addEventHandler(MouseEvent.MOUSE_DRAGGED, e -> {
+                double shift = (e.getSceneX() - dragX) * (dragHi - dragLo) / Math.max(1, width.getAsDouble());
+                set(dragLo - shift, dragHi - shift);
+            });
+            node.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+                if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                    set(fullLo, fullHi);
+                }
+            });
         }
 
-        VBox vbox = new VBox(lineChart);
-        Scene scene = new Scene(vbox, 600, 400);
-        stage.setScene(scene);
-        stage.show();
+        void set(double newLo, double newHi) {
+            if (!(newHi - newLo > 0) || !Double.isFinite(newLo) || !Double.isFinite(newHi)) return;
+            // Below a few ulps the bounds can no longer be told apart, so stop zooming there
+            double minWidth = MIN_WIDTH_ULPS * Math.ulp(Math.max(Math.abs(newLo), Math.abs(newHi)));
+            if (newHi - newLo < minWidth) {
+                double center = newLo + (newHi - newLo) / 2;
+                newLo = center - minWidth / 2;
+                newHi = center + minWidth / 2;
+            }
+            lo = newLo;
+            hi = newHi;
+            if (!pending) {
+                pending = true;
+                Platform.runLater(() -> {
+                    pending = false;
+                    onChange.run();
+                });
+            }
+        }
+
+        double lo() {
+            return lo;
+        }
+
+        double hi() {
+            return hi;
+        }
+    }
+
+    /** The series in a {@link LineChart}, replaced by their downsampled points on every change. */
+    private static final class ChartPlot extends VBox {
+
+        private final NumberAxis xAxis = new NumberAxis();
+        private final LineChart<Number, Number> lineChart;
+        private final List<XYChart.Series<Number, Number>> shown = new ArrayList<>();
+        private final XWindow window = new XWindow(this::refresh);
+        private double[] bufferX = new double[0], bufferY = new double[0];
+
+        ChartPlot() {
+            xAxis.setLabel(xLabel);
+            xAxis.setAutoRanging(false);
+            xAxis.setAnimated(false);
+
+            NumberAxis yAxis = new NumberAxis();
+            yAxis.setLabel(yLabel);
+            yAxis.setAnimated(false);
+
+            lineChart = new LineChart<>(xAxis, yAxis);
+            lineChart.setTitle(chartTitle);
+            lineChart.setCreateSymbols(false); // disables hollow symbols, just lines
+            lineChart.setAnimated(false);
+
+            for (Series series : seriesList) {
+                XYChart.Series<Number, Number> chartSeries = new XYChart.Series<>();
+                chartSeries.setName(series.label());
+                shown.add(chartSeries);
+                lineChart.getData().add(chartSeries);
+            }
+            getChildren().add(lineChart);
+            VBox.setVgrow(lineChart, Priority.ALWAYS);
+
+            window.attach(lineChart, x -> xAxis.getValueForDisplay(
+                    xAxis.sceneToLocal(lineChart.localToScene(x, 0)).getX()).doubleValue(), xAxis::getWidth);
+            xAxis.widthProperty().addListener((obs, oldVal, newVal) -> refresh());
+            refresh();
+        }
+
+        private void refresh() {
+            double lo = window.lo(), hi = window.hi();
+            xAxis.setLowerBound(lo);
+            xAxis.setUpperBound(hi);
+            xAxis.setTickUnit(niceStep((hi - lo) / 10));
+
+            int threshold = Math.max(3, POINTS_PER_PIXEL * (int) Math.max(xAxis.getWidth(), 300));
+            if (bufferX.length < threshold) {
+                bufferX = new double[threshold];
+                bufferY = new double[threshold];
+            }
+            for (int s = 0; s < seriesList.size(); s++) {
+                int n = seriesList.get(s).downsample(lo, hi, threshold, bufferX, bufferY);
+                List<XYChart.Data<Number, Number>> points = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    points.add(new XYChart.Data<>(bufferX[i], bufferY[i]));
+                }
+                shown.get(s).getData().setAll(points);
+            }
+        }
+    }
+
+    /** The series drawn as polylines on a canvas, redrawn at most once per pulse. */
+    private static final class CanvasPlot extends Region {
+
+        private static final double LEFT = 70, RIGHT = 20, TOP = 40, BOTTOM = 50;
+        private static final Color[] COLORS = {
+                Color.web("#f3622d"), Color.web("#fba71b"), Color.web("#57b757"), Color.web("#41a9c9"),
+                Color.web("#4258c9"), Color.web("#9a42c8"), Color.web("#c84164"), Color.web("#888888")
+        };
+
+        private final Canvas canvas = new Canvas();
+        private final XWindow window = new XWindow(this::requestLayout);
+        private double[][] bufferX = new double[0][], bufferY = new double[0][];
+
+        CanvasPlot() {
+            getChildren().add(canvas);
+            setPrefSize(600, 400);
+            window.attach(this, x -> window.lo() + (x - LEFT) / plotWidth() * (window.hi() - window.lo()),
+                    this::plotWidth);
+        }
+
+        private double plotWidth() {
+            return Math.max(1, getWidth() - LEFT - RIGHT);
+        }
+
+        @Override
+        protected void layoutChildren() {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            draw();
+        }
+
+        private void draw() {
+            double width = getWidth(), height = getHeight();
+            double plotW = plotWidth(), plotH = Math.max(1, height - TOP - BOTTOM);
+            double lo = window.lo(), hi = window.hi();
+
+            // Downsample first; the y range follows the visible points
+            int series = seriesList.size();
+            int threshold = Math.max(3, POINTS_PER_PIXEL * (int) plotW);
+            if (bufferX.length != series || (series > 0 && bufferX[0].length < threshold)) {
+                bufferX = new double[series][threshold];
+                bufferY = new double[series][threshold];
+            }
+            int[] counts = new int[series];
+            double yLo = Double.POSITIVE_INFINITY, yHi = Double.NEGATIVE_INFINITY;
+            for (int s = 0; s < series; s++) {
+                counts[s] = seriesList.get(s).downsample(lo, hi, threshold, bufferX[s], bufferY[s]);
+                for (int i = 0; i < counts[s]; i++) {
+                    yLo = Math.min(yLo, bufferY[s][i]);
+                    yHi = Math.max(yHi, bufferY[s][i]);
+                }
+            }
+            if (!(yHi > yLo)) {
+                double mid = Double.isFinite(yLo) ? yLo : 0;
+                double half = Math.max(1, MIN_WIDTH_ULPS * Math.ulp(mid));
+                yLo = mid - half;
+                yHi = mid + half;
+            }
+            double pad = 0.05 * (yHi - yLo);
+            yLo -= pad;
+            yHi += pad;
+
+            GraphicsContext gc = canvas.getGraphicsContext2D();
+            gc.setFill(Color.WHITE);
+            gc.fillRect(0, 0, width, height);
+
+            // Grid, ticks and labels
+            gc.setFont(Font.font(11));
+            gc.setLineWidth(1);
+            double xStep = niceStep((hi - lo) / 10);
+            gc.setTextAlign(TextAlignment.CENTER);
+            double xFirst = Math.ceil(lo / xStep);
+            int xTicks = tickCount(xFirst, hi / xStep);
+            for (int i = 0; i < xTicks; i++) {
+                double x = (xFirst + i) * xStep;
+                double px = LEFT + (x - lo) / (hi - lo) * plotW;
+                gc.setStroke(Color.gray(0.9));
+                gc.strokeLine(px, TOP, px, TOP + plotH);
+                gc.setFill(Color.gray(0.3));
+                gc.fillText(formatTick(x, xStep), px, TOP + plotH + 15);
+            }
+            double yStep = niceStep((yHi - yLo) / 8);
+            gc.setTextAlign(TextAlignment.RIGHT);
+            double yFirst = Math.ceil(yLo / yStep);
+            int yTicks = tickCount(yFirst, yHi / yStep);
+            for (int i = 0; i < yTicks; i++) {
+                double y = (yFirst + i) * yStep;
+                double py = TOP + (yHi - y) / (yHi - yLo) * plotH;
+                gc.setStroke(Color.gray(0.9));
+                gc.strokeLine(LEFT, py, LEFT + plotW, py);
+                gc.setFill(Color.gray(0.3));
+                gc.fillText(formatTick(y, yStep), LEFT - 5, py + 4);
+            }
+            gc.setStroke(Color.gray(0.4));
+            gc.strokeRect(LEFT, TOP, plotW, plotH);
+
+            gc.setFill(Color.BLACK);
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.fillText(xLabel, LEFT + plotW / 2, height - 12);
+            gc.setFont(Font.font(16));
+            gc.fillText(chartTitle, width / 2, 24);
+            gc.setFont(Font.font(11));
+            gc.save();
+            gc.translate(15, TOP + plotH / 2);
+            gc.rotate(-90);
+            gc.fillText(yLabel, 0, 0);
+            gc.restore();
+
+            // Series, mapped to pixels in place and clipped to the plot
+            gc.save();
+            gc.beginPath();
+            gc.rect(LEFT, TOP, plotW, plotH);
+            gc.clip();
+            gc.setLineWidth(1.5);
+            for (int s = 0; s < series; s++) {
+                double[] px = bufferX[s], py = bufferY[s];
+                for (int i = 0; i < counts[s]; i++) {
+                    px[i] = LEFT + (px[i] - lo) / (hi - lo) * plotW;
+                    py[i] = TOP + (yHi - py[i]) / (yHi - yLo) * plotH;
+                }
+                gc.setStroke(COLORS[s % COLORS.length]);
+                gc.strokePolyline(px, py, counts[s]);
+            }
+            gc.restore();
+
+            // Legend
+            gc.setTextAlign(TextAlignment.LEFT);
+            double lx = LEFT + 10;
+            for (int s = 0; s < series; s++) {
+                gc.setFill(COLORS[s % COLORS.length]);
+                gc.fillRect(lx, TOP + 8, 10, 10);
+                gc.setFill(Color.BLACK);
+                gc.fillText(seriesList.get(s).label(), lx + 14, TOP + 17);
+                lx += 24 + 7 * seriesList.get(s).label().length();
+            }
+        }
+    }
+
+    /** Rounds a tick spacing up to 1, 2 or 5 times a power of ten. */
+    private static double niceStep(double raw) {
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double fraction = raw / magnitude;
+        return (fraction <= 1 ? 1 : fraction <= 2 ? 2 : fraction <= 5 ? 5 : 10) * magnitude;
+    }
+
+    /**
+     * Counts the ticks from a first to a last multiple of the step, computed from the
+     * tick index rather than by repeated addition, which stalls once the step drops
+     * below the ulp of the values.
+     */
+    private static int tickCount(double firstIndex, double last) {
+        double count = Math.floor(last) - firstIndex + 1;
+        return count > 0 ? (int) Math.min(count, MAX_TICKS) : 0;
+    }
+
+    private static String formatTick(double value, double step) {
+        if (Math.abs(value) < step / 2) return "0";
+        double abs = Math.abs(value);
+        if (abs >= 1e6 || abs < 1e-3) return String.format("%.3g", value);
+        int decimals = Math.max(0, (int) -Math.floor(Math.log10(step)));
+        return String.format("%." + decimals + "f", value);
     }
 }
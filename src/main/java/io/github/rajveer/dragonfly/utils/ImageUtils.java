@@ -1,8 +1,7 @@
 package io.github.rajveer.dragonfly.utils;
 
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 
 public class ImageUtils {
@@ -32,22 +31,39 @@ public class ImageUtils {
     /**
      * Helper method to rotate an image by a given angle.
      * Positive angle = clockwise, Negative = counterclockwise.
+     * Works on the pixels directly, so it may run on any thread.
      */
     private static Image rotateImage(Image original, double angle) {
-        Canvas canvas = new Canvas(original.getHeight(), original.getWidth());
-        GraphicsContext gc = canvas.getGraphicsContext2D();
+        int width = (int) original.getWidth();
+        int height = (int) original.getHeight();
+        int[] pixels = new int[width * height];
+        original.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
 
-        if (angle == 90) {
-            gc.translate(original.getHeight(), 0);
-        } else if (angle == -90) {
-            gc.translate(0, original.getWidth());
-        }
-        gc.rotate(angle);
-        gc.drawImage(original, 0, 0);
-
-        WritableImage rotated = new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
-        canvas.snapshot(null, rotated);
+        WritableImage rotated = new WritableImage(height, width);
+        rotated.getPixelWriter().setPixels(0, 0, height, width, PixelFormat.getIntArgbInstance(),
+                rotatePixels(pixels, width, height, angle > 0), 0, height);
+        return rotated;
+    }
 
+    /**
+     * Rotates ARGB pixels a quarter turn.
+     *
+     * @param pixels    row-major pixels of the source
+     * @param width     source width
+     * @param height    source height
+     * @param clockwise true to rotate to the right, false to the left
+     * @return row-major pixels of the rotated image, which is {@code height} wide and {@code width} high
+     */
+    public static int[] rotatePixels(int[] pixels, int width, int height, boolean clockwise) {
+        int[] rotated = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int tx = clockwise ? height - 1 - y : y;
+                int ty = clockwise ? x : width - 1 - x;
+                rotated[ty * height + tx] = pixels[row + x];
+            }
+        }
         return rotated;
     }
 }
@@ -0,0 +1,155 @@
+package io.github.rajveer.dragonfly.utils;
+
+/**
+ * Two-body (Keplerian) motion in universal variables.
+ * <p>
+ * The universal anomaly χ covers elliptic, parabolic and hyperbolic orbits with a
+ * single formulation; the Stumpff functions C(z) and S(z) replace the trigonometric
+ * or hyperbolic terms of the classical equations.
+ */
+public final class Kepler {
+
+    /** Maximum Laguerre iterations when solving the universal Kepler equation. */
+    private static final int MAX_ITERATIONS = 50;
+
+    /** Below this |z| the Stumpff functions use their series expansions. */
+    private static final double SERIES_LIMIT = 1e-2;
+
+    private Kepler() {
+    }
+
+    /**
+     * Stumpff function C(z) = (1 - cos √z) / z.
+     *
+     * @param z the argument α·χ²
+     * @return C(z)
+     */
+    public static double stumpffC(double z) {
+        if (Math.abs(z) < SERIES_LIMIT) {
+            return 1.0 / 2 - z / 24 + z * z / 720 - z * z * z / 40320;
+        }
+        if (z > 0) {
+            return (1 - Math.cos(Math.sqrt(z))) / z;
+        }
+        return (Math.cosh(Math.sqrt(-z)) - 1) / -z;
+    }
+
+    /**
+     * Stumpff function S(z) = (√z - sin √z) / √z³.
+     *
+     * @param z the argument α·χ²
+     * @return S(z)
+     */
+    public static double stumpffS(double z) {
+        if (Math.abs(z) < SERIES_LIMIT) {
+            return 1.0 / 6 - z / 120 + z * z / 5040 - z * z * z / 362880;
+        }
+        if (z > 0) {
+            double sz = Math.sqrt(z);
+            return (sz - Math.sin(sz)) / (sz * sz * sz);
+        }
+        double sz = Math.sqrt(-z);
+        return (Math.sinh(sz) - sz) / (sz * sz * sz);
+    }
+
+    /**
+     * Propagates a state relative to the central body along its Keplerian orbit,
+     * in place.
+     *
+     * @param mu     gravitational parameter of the central body
+     * @param state  array holding the relative state (x, y, z, vx, vy, vz)
+     * @param offset index of x within {@code state}
+     * @param dt     time to propagate; may be negative
+     * @throws ArithmeticException if the universal Kepler equation does not converge
+     */
+    public static void propagate(double mu, double[] state, int offset, double dt) {
+        double x = state[offset], y = state[offset + 1], z = state[offset + 2];
+        double vx = state[offset + 3], vy = state[offset + 4], vz = state[offset + 5];
+
+        double r0 = Math.sqrt(x * x + y * y + z * z);
+        if (r0 == 0 || dt == 0) {
+            return;
+        }
+        double v0sq = vx * vx + vy * vy + vz * vz;
+        double sqrtMu = Math.sqrt(mu);
+        double rdotv = (x * vx + y * vy + z * vz) / sqrtMu;
+        double alpha = 2 / r0 - v0sq / mu;
+
+        // Whole revolutions of bound orbits do not change the state
+        if (alpha > 0) {
+            double period = 2 * Math.PI / (sqrtMu * alpha * Math.sqrt(alpha));
+            dt = Math.IEEEremainder(dt, period);
+        }
+
+        double chi = solveUniversal(sqrtMu, r0, rdotv, alpha, dt);
+
+        double psi = alpha * chi * chi;
+        double c = stumpffC(psi);
+        double s = stumpffS(psi);
+        double chi2 = chi * chi;
+
+        double f = 1 - chi2 / r0 * c;
+        double g = dt - chi2 * chi / sqrtMu * s;
+
+        double rx = f * x + g * vx;
+        double ry = f * y + g * vy;
+        double rz = f * z + g * vz;
+        double r = Math.sqrt(rx * rx + ry * ry + rz * rz);
+
+        double fdot = sqrtMu / (r * r0) * (psi * s - 1) * chi;
+        double gdot = 1 - chi2 / r * c;
+
+        state[offset] = rx;
+        state[offset + 1] = ry;
+        state[offset + 2] = rz;
+        state[offset + 3] = fdot * x + gdot * vx;
+        state[offset + 4] = fdot * y + gdot * vy;
+        state[offset + 5] = fdot * z + gdot * vz;
+    }
+
+    /**
+     * Solves the universal Kepler equation for χ with the Laguerre–Conway method,
+     * which converges from crude starting values for all orbit types.
+     */
+    private static double solveUniversal(double sqrtMu, double r0, double rdotv, double alpha, double dt) {
+        double chi = alpha > 0
+                ? sqrtMu * dt * alpha
+                : sqrtMu * dt / r0;
+        if (alpha < 0) {
+            // Vallado's hyperbolic guess; the linear one overshoots exponentially for fast orbits
+            double a = 1 / alpha;
+            double sign = Math.signum(dt);
+            double arg = -2 * alpha * sqrtMu * sqrtMu * dt
+                    / (rdotv * sqrtMu + sign * Math.sqrt(-sqrtMu * sqrtMu * a) * (1 - r0 * alpha));
+            if (arg > 1) {
+                chi = sign * Math.sqrt(-a) * Math.log(arg);
+            }
+        }
+        double target = sqrtMu * dt;
+        double n = 5;
+
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double chi2 = chi * chi;
+            double psi = alpha * chi2;
+            double c = stumpffC(psi);
+            double s = stumpffS(psi);
+
+            double f = rdotv * chi2 * c + (1 - alpha * r0) * chi2 * chi * s + r0 * chi - target;
+            double df = rdotv * chi * (1 - psi * s) + (1 - alpha * r0) * chi2 * c + r0;
+            double ddf = rdotv * (1 - psi * c) + (1 - alpha * r0) * chi * (1 - psi * s);
+
+            double root = Math.sqrt(Math.abs((n - 1) * (n - 1) * df * df - n * (n - 1) * f * ddf));
+            double delta = n * f / (df + Math.copySign(root, df));
+            chi -= delta;
+
+            // Far-hyperbolic orbits cancel large terms, so the residual can stall at
+            // round-off level before the step does
+            double scale = Math.abs(rdotv * chi2 * c) + Math.abs((1 - alpha * r0) * chi2 * chi * s)
+                    + Math.abs(r0 * chi) + Math.abs(target);
+            if (Math.abs(delta) <= 1e-14 * Math.max(1, Math.abs(chi)) || Math.abs(f) <= 1e-13 * scale) {
+                return chi;
+            }
+        }
+        throw new ArithmeticException("Universal Kepler equation did not converge");
+    }
+}
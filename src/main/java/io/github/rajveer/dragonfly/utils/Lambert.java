@@ -0,0 +1,113 @@
+package io.github.rajveer.dragonfly.utils;
+
+/**
+ * Lambert's problem in universal variables: the Keplerian arc connecting two
+ * positions in a given time of flight.
+ * <p>
+ * The time-of-flight equation is solved for z = α·χ² by bisection, which is
+ * monotone for zero-revolution transfers and covers elliptic, parabolic and
+ * hyperbolic arcs alike. The Stumpff functions are those of {@link Kepler}.
+ */
+public final class Lambert {
+
+    /** Upper limit of z for zero-revolution transfers, (2π)². */
+    private static final double Z_MAX = 4 * Math.PI * Math.PI;
+
+    /** Bisection iterations; enough to reach double precision in z. */
+    private static final int MAX_ITERATIONS = 200;
+
+    private Lambert() {
+    }
+
+    /**
+     * Solves Lambert's problem for a zero-revolution transfer.
+     *
+     * @param mu       gravitational parameter of the central body
+     * @param r1       departure position relative to the central body (x, y, z)
+     * @param r2       arrival position relative to the central body (x, y, z)
+     * @param tof      time of flight, positive
+     * @param prograde true for the transfer whose angular momentum has a positive z
+     *                 component, false for the retrograde one
+     * @param v1       receives the departure velocity
+     * @param v2       receives the arrival velocity
+     * @return false if no transfer exists, e.g. for a transfer angle of exactly π or
+     *         coincident positions; the velocities are then left unchanged
+     */
+    public static boolean solve(double mu, double[] r1, double[] r2, double tof, boolean prograde,
+                                double[] v1, double[] v2) {
+        if (!(tof > 0)) {
+            throw new IllegalArgumentException("Time of flight must be positive: " + tof);
+        }
+        double n1 = Math.sqrt(r1[0] * r1[0] + r1[1] * r1[1] + r1[2] * r1[2]);
+        double n2 = Math.sqrt(r2[0] * r2[0] + r2[1] * r2[1] + r2[2] * r2[2]);
+        if (n1 == 0 || n2 == 0) {
+            return false;
+        }
+
+        // Transfer angle, choosing the branch from the orbit direction
+        double cz = r1[0] * r2[1] - r1[1] * r2[0];
+        double cosDnu = Math.max(-1, Math.min(1, (r1[0] * r2[0] + r1[1] * r2[1] + r1[2] * r2[2]) / (n1 * n2)));
+        double dnu = Math.acos(cosDnu);
+        if (prograde != (cz >= 0)) {
+            dnu = 2 * Math.PI - dnu;
+        }
+
+        // At a transfer angle of π, sin(dnu) only rounds to zero and the plane is undefined
+        double a = Math.sin(dnu) * Math.sqrt(n1 * n2 / (1 - cosDnu));
+        if (!Double.isFinite(a) || Math.abs(a) <= 1e-10 * Math.sqrt(n1 * n2)) {
+            return false;
+        }
+
+        double target = Math.sqrt(mu) * tof;
+
+        // Bracket the root; below the lower bound y(z) < 0 or the flight is too short
+        double lo = -Z_MAX;
+        while (timeOfFlight(lo, n1, n2, a) > target) {
+            lo *= 2;
+            if (lo < -1e6) {
+                return false;
+            }
+        }
+        double hi = Z_MAX;
+
+        double z = 0;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            z = 0.5 * (lo + hi);
+            if (z == lo || z == hi) break;
+            if (timeOfFlight(z, n1, n2, a) > target) {
+                hi = z;
+            } else {
+                lo = z;
+            }
+        }
+
+        double y = y(z, n1, n2, a);
+        if (!(y > 0)) {
+            return false;
+        }
+
+        // Lagrange coefficients
+        double f = 1 - y / n1;
+        double g = a * Math.sqrt(y / mu);
+        double gdot = 1 - y / n2;
+        for (int k = 0; k < 3; k++) {
+            v1[k] = (r2[k] - f * r1[k]) / g;
+            v2[k] = (gdot * r2[k] - r1[k]) / g;
+        }
+        return true;
+    }
+
+    private static double y(double z, double n1, double n2, double a) {
+        return n1 + n2 + a * (z * Kepler.stumpffS(z) - 1) / Math.sqrt(Kepler.stumpffC(z));
+    }
+
+    /** Returns √μ·t for a given z, or -∞ where y(z) is negative and no arc exists. */
+    private static double timeOfFlight(double z, double n1, double n2, double a) {
+        double y = y(z, n1, n2, a);
+        if (y < 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double c = Kepler.stumpffC(z);
+        return Math.pow(y / c, 1.5) * Kepler.stumpffS(z) + a * Math.sqrt(y);
+    }
+}
@@ -0,0 +1,290 @@
+package io.github.rajveer.dragonfly.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Compact store of a simulated trajectory in the N-body layout, i.e. a fixed
+ * number of components (such as x, y, z, vx, vy, vz) for each body at each step.
+ * <p>
+ * Samples are appended into chunks of {@value #CHUNK_SIZE} steps. Within a chunk
+ * every body and component has its own contiguous column of primitives, so a
+ * single coordinate over time is copied out in bulk, and no object is kept per
+ * step. Values are stored as {@code double}s, or as {@code float}s to halve the
+ * memory when the precision is only needed for display. An optional decimation
+ * keeps every k-th appended state only.
+ * <p>
+ * One thread may append while others read: a sample becomes visible to readers
+ * through {@link #size()} only after it has been written completely. Appending
+ * from several threads at once is not supported.
+ * <p>
+ * For runs that do not fit in memory, or to replay a run later, stream the
+ * states to a {@link TrajectoryWriter} instead and read them back through a
+ * {@link TrajectoryFile}.
+ */
+public final class Trajectory implements TrajectoryView {
+
+    /** Steps per chunk. */
+    public static final int CHUNK_SIZE = 1024;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int numBodies;
+    private final int componentsPerBody;
+    private final int dimension;
+    private final int decimation;
+    private final boolean singlePrecision;
+
+    // Chunks of dimension columns of CHUNK_SIZE values; only one of the two is used
+    private volatile double[][] doubleChunks = new double[0][];
+    private volatile float[][] floatChunks = new float[0][];
+    private volatile double[][] timeChunks = new double[0][];
+
+    /** Number of stored samples, written after the sample itself. */
+    private volatile int size;
+
+    /** Number of states offered to {@link #append}, including the decimated ones. */
+    private long appended;
+
+    /**
+     * Creates an empty double-precision trajectory that keeps every state.
+     *
+     * @param numBodies         number of bodies
+     * @param componentsPerBody number of values per body in a state, e.g. 6
+     */
+    public Trajectory(int numBodies, int componentsPerBody) {
+        this(numBodies, componentsPerBody, 1, false);
+    }
+
+    /**
+     * Creates an empty trajectory.
+     *
+     * @param numBodies         number of bodies
+     * @param componentsPerBody number of values per body in a state, e.g. 6
+     * @param decimation        keep every decimation-th appended state, starting with the first
+     * @param singlePrecision   whether to store values as floats
+     */
+    public Trajectory(int numBodies, int componentsPerBody, int decimation, boolean singlePrecision) {
+        if (numBodies < 1 || componentsPerBody < 1) {
+            throw new IllegalArgumentException("Trajectory needs at least one body and component: "
+                    + numBodies + " x " + componentsPerBody);
+        }
+        if (decimation < 1) {
+            throw new IllegalArgumentException("Decimation must be positive: " + decimation);
+        }
+        this.numBodies = numBodies;
+        this.componentsPerBody = componentsPerBody;
+        this.dimension = numBodies * componentsPerBody;
+        this.decimation = decimation;
+        this.singlePrecision = singlePrecision;
+    }
+
+    /**
+     * Offers a state to the trajectory, which stores it unless it is decimated.
+     *
+     * @param t     time of the state
+     * @param state the state, {@code componentsPerBody} values per body; copied
+     * @return true if the state was stored
+     */
+    public boolean append(double t, double[] state) {
+        if (state.length != dimension) {
+            throw new IllegalArgumentException("Expected a state of length " + dimension + ", got " + state.length);
+        }
+        if (appended++ % decimation != 0) {
+            return false;
+        }
+
+        int step = size;
+        int chunk = step >>> CHUNK_SHIFT;
+        int row = step & CHUNK_MASK;
+        if (chunk == timeChunks.length) {
+            grow();
+        }
+
+        if (singlePrecision) {
+            float[] values = floatChunks[chunk];
+            for (int c = 0; c < dimension; c++) {
+                values[c * CHUNK_SIZE + row] = (float) state[c];
+            }
+        } else {
+            double[] values = doubleChunks[chunk];
+            for (int c = 0; c < dimension; c++) {
+                values[c * CHUNK_SIZE + row] = state[c];
+            }
+        }
+        timeChunks[chunk][row] = t;
+
+        // Publish the sample
+        size = step + 1;
+        return true;
+    }
+
+    /** Adds a chunk, publishing the enlarged chunk tables before any sample in it. */
+    private void grow() {
+        int chunks = timeChunks.length;
+        if (singlePrecision) {
+            float[][] grown = Arrays.copyOf(floatChunks, chunks + 1);
+            grown[chunks] = new float[dimension * CHUNK_SIZE];
+            floatChunks = grown;
+        } else {
+            double[][] grown = Arrays.copyOf(doubleChunks, chunks + 1);
+            grown[chunks] = new double[dimension * CHUNK_SIZE];
+            doubleChunks = grown;
+        }
+        double[][] times = Arrays.copyOf(timeChunks, chunks + 1);
+        times[chunks] = new double[CHUNK_SIZE];
+        timeChunks = times;
+    }
+
+    /**
+     * Returns the number of stored samples.
+     *
+     * @return the sample count
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bodies.
+     *
+     * @return the body count
+     */
+    @Override
+    public int getNumBodies() {
+        return numBodies;
+    }
+
+    /**
+     * Returns the number of values per body in a state.
+     *
+     * @return the component count
+     */
+    @Override
+    public int getComponentsPerBody() {
+        return componentsPerBody;
+    }
+
+    /**
+     * Returns the decimation factor.
+     *
+     * @return how many appended states make one stored sample
+     */
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Returns whether values are stored as floats.
+     *
+     * @return true for single precision
+     */
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    /**
+     * Returns the time of a sample.
+     *
+     * @param step the sample index
+     * @return its time
+     */
+    @Override
+    public double getTime(int step) {
+        Objects.checkIndex(step, size);
+        return timeChunks[step >>> CHUNK_SHIFT][step & CHUNK_MASK];
+    }
+
+    /**
+     * Returns one value of a sample.
+     *
+     * @param step      the sample index
+     * @param body      the body
+     * @param component the component within the body, e.g. 0 for x
+     * @return the value
+     */
+    @Override
+    public double get(int step, int body, int component) {
+        Objects.checkIndex(step, size);
+        int column = columnIndex(body, component);
+        int index = column * CHUNK_SIZE + (step & CHUNK_MASK);
+        return singlePrecision
+                ? floatChunks[step >>> CHUNK_SHIFT][index]
+                : doubleChunks[step >>> CHUNK_SHIFT][index];
+    }
+
+    /**
+     * Copies a whole sample in the N-body layout.
+     *
+     * @param step the sample index
+     * @param out  receives {@code componentsPerBody} values per body
+     */
+    @Override
+    public void stateInto(int step, double[] out) {
+        Objects.checkIndex(step, size);
+        int chunk = step >>> CHUNK_SHIFT;
+        int row = step & CHUNK_MASK;
+        if (singlePrecision) {
+            float[] values = floatChunks[chunk];
+            for (int c = 0; c < dimension; c++) {
+                out[c] = values[c * CHUNK_SIZE + row];
+            }
+        } else {
+            double[] values = doubleChunks[chunk];
+            for (int c = 0; c < dimension; c++) {
+                out[c] = values[c * CHUNK_SIZE + row];
+            }
+        }
+    }
+
+    /**
+     * Copies the times of all samples stored so far.
+     *
+     * @return the times, one per sample
+     */
+    @Override
+    public double[] times() {
+        int n = size;
+        double[][] chunks = timeChunks;
+        double[] out = new double[n];
+        for (int from = 0; from < n; from += CHUNK_SIZE) {
+            System.arraycopy(chunks[from >>> CHUNK_SHIFT], 0, out, from, Math.min(CHUNK_SIZE, n - from));
+        }
+        return out;
+    }
+
+    /**
+     * Copies one component of one body over all samples stored so far, e.g. for
+     * plotting.
+     *
+     * @param body      the body
+     * @param component the component within the body
+     * @return the values, one per sample
+     */
+    @Override
+    public double[] column(int body, int component) {
+        int n = size;
+        int offset = columnIndex(body, component) * CHUNK_SIZE;
+        double[] out = new double[n];
+        if (singlePrecision) {
+            float[][] chunks = floatChunks;
+            for (int i = 0; i < n; i++) {
+                out[i] = chunks[i >>> CHUNK_SHIFT][offset + (i & CHUNK_MASK)];
+            }
+        } else {
+            double[][] chunks = doubleChunks;
+            for (int from = 0; from < n; from += CHUNK_SIZE) {
+                System.arraycopy(chunks[from >>> CHUNK_SHIFT], offset, out, from, Math.min(CHUNK_SIZE, n - from));
+            }
+        }
+        return out;
+    }
+
+    private int columnIndex(int body, int component) {
+        Objects.checkIndex(body, numBodies);
+        Objects.checkIndex(component, componentsPerBody);
+        return body * componentsPerBody + component;
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.rajveer.dragonfly.utils;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A trajectory stored in a file, read in place through a memory mapping so runs
+ * larger than the heap can be replayed.
+ * <p>
+ * Format, little-endian throughout: a {@value #HEADER_SIZE}-byte header
+ * <pre>
+ *  0  8 bytes  magic "DFTRAJ" padded with zeros
+ *  8  int      format version, {@value #VERSION}
+ * 12  int      flags; bit 0 set if values are floats, else doubles
+ * 16  int      number of bodies N
+ * 20  int      components per body C
+ * 24  double   nominal step size in seconds
+ * 32  long     number of records, or -1 while the writer is still open
+ * 40  reserved, zero
+ * </pre>
+ * followed by fixed-stride records, one per step: the time as a double, then the
+ * N·C values body by body in the precision given by the flags. A file whose
+ * record count was never written, e.g. from an interrupted run, is read up to its
+ * last complete record.
+ * <p>
+ * The mapping lives in a shared arena, so any thread may read while the file is
+ * open. {@link #close()} unmaps it; no reads may happen after that.
+ *
+ * @see TrajectoryWriter
+ */
+public final class TrajectoryFile implements TrajectoryView, AutoCloseable {
+
+    /** The bytes "DFTRAJ\0\0" read as a little-endian long. */
+    static final long MAGIC = 0x00004A4152544644L;
+
+    /** Current format version. */
+    static final int VERSION = 1;
+
+    /** Flag bit for single-precision values. */
+    static final int FLAG_SINGLE_PRECISION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 64;
+
+    static final long OFFSET_VERSION = 8;
+    static final long OFFSET_FLAGS = 12;
+    static final long OFFSET_BODIES = 16;
+    static final long OFFSET_COMPONENTS = 20;
+    static final long OFFSET_STEP_SIZE = 24;
+    static final long OFFSET_RECORDS = 32;
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int numBodies;
+    private final int componentsPerBody;
+    private final boolean singlePrecision;
+    private final double stepSize;
+    private final long stride;
+    private final int size;
+
+    private TrajectoryFile(Arena arena, MemorySegment segment, int numBodies, int componentsPerBody,
+                           boolean singlePrecision, double stepSize, int size) {
+        this.arena = arena;
+        this.segment = segment;
+        this.numBodies = numBodies;
+        this.componentsPerBody = componentsPerBody;
+        this.singlePrecision = singlePrecision;
+        this.stepSize = stepSize;
+        this.stride = recordSize(numBodies * componentsPerBody, singlePrecision);
+        this.size = size;
+    }
+
+    /**
+     * Maps a trajectory file for reading.
+     *
+     * @param path the file
+     * @return the open trajectory
+     * @throws IOException if the file cannot be read or is not a trajectory file of a known version
+     */
+    public static TrajectoryFile open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Not a trajectory file, too short: " + path);
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, length, arena);
+            if (segment.get(LONG, 0) != MAGIC) {
+                throw new IOException("Not a trajectory file: " + path);
+            }
+            int version = segment.get(INT, OFFSET_VERSION);
+            if (version != VERSION) {
+                throw new IOException("Unsupported trajectory format version " + version + ": " + path);
+            }
+            boolean single = (segment.get(INT, OFFSET_FLAGS) & FLAG_SINGLE_PRECISION) != 0;
+            int bodies = segment.get(INT, OFFSET_BODIES);
+            int components = segment.get(INT, OFFSET_COMPONENTS);
+            if (bodies < 1 || components < 1) {
+                throw new IOException("Corrupt trajectory header: " + bodies + " x " + components + ": " + path);
+            }
+            double stepSize = segment.get(DOUBLE, OFFSET_STEP_SIZE);
+
+            long stride = recordSize(bodies * components, single);
+            long complete = (length - HEADER_SIZE) / stride;
+            long records = segment.get(LONG, OFFSET_RECORDS);
+            if (records < 0 || records > complete) {
+                records = complete;
+            }
+            if (records > Integer.MAX_VALUE) {
+                throw new IOException("Too many records to index: " + records + ": " + path);
+            }
+            return new TrajectoryFile(arena, segment, bodies, components, single, stepSize, (int) records);
+        } catch (IOException | RuntimeException ex) {
+            arena.close();
+            throw ex;
+        }
+    }
+
+    /** Returns the size in bytes of one record. */
+    static long recordSize(int dimension, boolean singlePrecision) {
+        return Double.BYTES + (long) dimension * (singlePrecision ? Float.BYTES : Double.BYTES);
+    }
+
+    /**
+     * Returns the nominal step size recorded by the writer.
+     *
+     * @return the step size in seconds
+     */
+    public double getStepSize() {
+        return stepSize;
+    }
+
+    /**
+     * Returns whether values are stored as floats.
+     *
+     * @return true for single precision
+     */
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getNumBodies() {
+        return numBodies;
+    }
+
+    @Override
+    public int getComponentsPerBody() {
+        return componentsPerBody;
+    }
+
+    @Override
+    public double getTime(int step) {
+        return segment.get(DOUBLE, record(step));
+    }
+
+    @Override
+    public double get(int step, int body, int component) {
+        Objects.checkIndex(body, numBodies);
+        Objects.checkIndex(component, componentsPerBody);
+        return value(record(step) + Double.BYTES, body * componentsPerBody + component);
+    }
+
+    @Override
+    public void stateInto(int step, double[] out) {
+        long values = record(step) + Double.BYTES;
+        int dimension = numBodies * componentsPerBody;
+        for (int c = 0; c < dimension; c++) {
+            out[c] = value(values, c);
+        }
+    }
+
+    @Override
+    public double[] column(int body, int component) {
+        Objects.checkIndex(body, numBodies);
+        Objects.checkIndex(component, componentsPerBody);
+        int index = body * componentsPerBody + component;
+        double[] out = new double[size];
+        long offset = HEADER_SIZE + Double.BYTES;
+        for (int i = 0; i < size; i++, offset += stride) {
+            out[i] = value(offset, index);
+        }
+        return out;
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private long record(int step) {
+        Objects.checkIndex(step, size);
+        return HEADER_SIZE + step * stride;
+    }
+
+    private double value(long values, int index) {
+        return singlePrecision
+                ? segment.get(FLOAT, values + (long) index * Float.BYTES)
+                : segment.get(DOUBLE, values + (long) index * Double.BYTES);
+    }
+}
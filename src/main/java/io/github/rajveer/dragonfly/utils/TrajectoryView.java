@@ -0,0 +1,93 @@
+package io.github.rajveer.dragonfly.utils;
+
+/**
+ * Read access to a stored trajectory in the N-body layout: a fixed number of
+ * components for each body at each step, together with the time of each step.
+ * <p>
+ * Implemented by the in-memory {@link Trajectory} and by the memory-mapped
+ * {@link TrajectoryFile}, so viewers and plots can replay either.
+ */
+public interface TrajectoryView {
+
+    /**
+     * Returns the number of stored samples.
+     *
+     * @return the sample count
+     */
+    int size();
+
+    /**
+     * Returns the number of bodies.
+     *
+     * @return the body count
+     */
+    int getNumBodies();
+
+    /**
+     * Returns the number of values per body in a state.
+     *
+     * @return the component count
+     */
+    int getComponentsPerBody();
+
+    /**
+     * Returns the time of a sample.
+     *
+     * @param step the sample index
+     * @return its time
+     */
+    double getTime(int step);
+
+    /**
+     * Returns one value of a sample.
+     *
+     * @param step      the sample index
+     * @param body      the body
+     * @param component the component within the body, e.g. 0 for x
+     * @return the value
+     */
+    double get(int step, int body, int component);
+
+    /**
+     * Copies a whole sample in the N-body layout.
+     *
+     * @param step the sample index
+     * @param out  receives {@code componentsPerBody} values per body
+     */
+    default void stateInto(int step, double[] out) {
+        int components = getComponentsPerBody();
+        for (int body = 0; body < getNumBodies(); body++) {
+            for (int c = 0; c < components; c++) {
+                out[body * components + c] = get(step, body, c);
+            }
+        }
+    }
+
+    /**
+     * Copies the times of all samples.
+     *
+     * @return the times, one per sample
+     */
+    default double[] times() {
+        double[] out = new double[size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = getTime(i);
+        }
+        return out;
+    }
+
+    /**
+     * Copies one component of one body over all samples, e.g. for plotting.
+     *
+     * @param body      the body
+     * @param component the component within the body
+     * @return the values, one per sample
+     */
+    default double[] column(int body, int component) {
+        double[] out = new double[size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = get(i, body, component);
+        }
+        return out;
+    }
+}
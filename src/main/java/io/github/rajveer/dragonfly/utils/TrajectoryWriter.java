@@ -0,0 +1,135 @@
+package io.github.rajveer.dragonfly.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams states to a trajectory file in the format of {@link TrajectoryFile}.
+ * <p>
+ * Records are collected in a direct buffer and written out whenever it fills up,
+ * so memory use does not grow with the length of the run. The record count in
+ * the header is filled in by {@link #close()}; until then it reads -1 and a
+ * reader takes every complete record. A writer must be used from one thread.
+ */
+public final class TrajectoryWriter implements AutoCloseable {
+
+    /** Size of the write buffer in bytes, enlarged to hold at least one record. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int dimension;
+    private final boolean singlePrecision;
+    private long records;
+    private boolean closed;
+
+    /**
+     * Creates or truncates a trajectory file and writes its header.
+     *
+     * @param path              the file
+     * @param numBodies         number of bodies
+     * @param componentsPerBody number of values per body in a state, e.g. 6
+     * @param stepSize          nominal step size in seconds, stored for information
+     * @param singlePrecision   whether to store values as floats
+     * @throws IOException if the file cannot be written
+     */
+    public TrajectoryWriter(Path path, int numBodies, int componentsPerBody, double stepSize,
+                            boolean singlePrecision) throws IOException {
+        if (numBodies < 1 || componentsPerBody < 1) {
+            throw new IllegalArgumentException("Trajectory needs at least one body and component: "
+                    + numBodies + " x " + componentsPerBody);
+        }
+        this.dimension = numBodies * componentsPerBody;
+        this.singlePrecision = singlePrecision;
+        long recordSize = TrajectoryFile.recordSize(dimension, singlePrecision);
+        if (recordSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Record too large: " + recordSize + " bytes");
+        }
+        this.buffer = ByteBuffer.allocateDirect((int) Math.max(BUFFER_SIZE, recordSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer.putLong(TrajectoryFile.MAGIC);
+        buffer.putInt(TrajectoryFile.VERSION);
+        buffer.putInt(singlePrecision ? TrajectoryFile.FLAG_SINGLE_PRECISION : 0);
+        buffer.putInt(numBodies);
+        buffer.putInt(componentsPerBody);
+        buffer.putDouble(stepSize);
+        buffer.putLong(-1);
+        while (buffer.position() < TrajectoryFile.HEADER_SIZE) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Appends a state.
+     *
+     * @param t     time of the state
+     * @param state the state, {@code componentsPerBody} values per body
+     * @throws IOException if writing fails
+     */
+    public void append(double t, double[] state) throws IOException {
+        if (state.length != dimension) {
+            throw new IllegalArgumentException("Expected a state of length " + dimension + ", got " + state.length);
+        }
+        int recordSize = (int) TrajectoryFile.recordSize(dimension, singlePrecision);
+        if (buffer.remaining() < recordSize) {
+            flush();
+        }
+        buffer.putDouble(t);
+        if (singlePrecision) {
+            for (double v : state) {
+                buffer.putFloat((float) v);
+            }
+        } else {
+            for (double v : state) {
+                buffer.putDouble(v);
+            }
+        }
+        records++;
+    }
+
+    /**
+     * Returns the number of records appended so far.
+     *
+     * @return the record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the remaining records and the record count, then closes the file.
+     * Closing again has no effect.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            count.putLong(records).flip();
+            while (count.hasRemaining()) {
+                channel.write(count, TrajectoryFile.OFFSET_RECORDS + count.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
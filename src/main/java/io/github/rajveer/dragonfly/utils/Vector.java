@@ -19,6 +19,17 @@ public class Vector {
         this.data = Arrays.copyOf(data, data.length);
     }
 
+    /**
+     * Constructs a zero vector of the given length. Used internally for results,
+     * which are written straight into the new vector's array instead of being
+     * copied in.
+     *
+     * @param length the number of elements
+     */
+    private Vector(int length) {
+        this.data = new double[length];
+    }
+
     /**
      * Returns the length (number of elements) of this vector.
      *
@@ -55,11 +66,11 @@ public class Vector {
      * @return a new scaled vector
      */
     public Vector scale(double scalar) {
-        double[] result = new double[data.length];
+        Vector result = new Vector(data.length);
         for (int i = 0; i < data.length; i++) {
-            result[i] = data[i] * scalar;
+            result.data[i] = data[i] * scalar;
         }
-        return new Vector(result);
+        return result;
     }
 
     /**
@@ -74,7 +85,9 @@ public class Vector {
         if (start < 0 || end > data.length || start >= end) {
             throw new IllegalArgumentException("Invalid slice indices: [" + start + ", " + end + ")");
         }
-        return new Vector(Arrays.copyOfRange(data, start, end));
+        Vector result = new Vector(end - start);
+        System.arraycopy(data, start, result.data, 0, end - start);
+        return result;
     }
 
     /**
@@ -86,11 +99,11 @@ public class Vector {
      */
     public Vector add(Vector other) {
         checkLength(other);
-        double[] result = new double[data.length];
+        Vector result = new Vector(data.length);
         for (int i = 0; i < data.length; i++) {
-            result[i] = this.data[i] + other.data[i];
+            result.data[i] = this.data[i] + other.data[i];
         }
-        return new Vector(result);
+        return result;
     }
 
     /**
@@ -102,11 +115,11 @@ public class Vector {
      */
     public Vector subtract(Vector other) {
         checkLength(other);
-        double[] result = new double[data.length];
+        Vector result = new Vector(data.length);
         for (int i = 0; i < data.length; i++) {
-            result[i] = this.data[i] - other.data[i];
+            result.data[i] = this.data[i] - other.data[i];
         }
-        return new Vector(result);
+        return result;
     }
 
     /**
@@ -1,6 +1,7 @@
 module io.github.rajveer.dragonfly {
     requires javafx.controls;
     requires javafx.fxml;
+    requires static jdk.incubator.vector;
 
     exports io.github.rajveer.dragonfly;
     opens io.github.rajveer.dragonfly to javafx.fxml;
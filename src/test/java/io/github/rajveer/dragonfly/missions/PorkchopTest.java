@@ -0,0 +1,72 @@
+package io.github.rajveer.dragonfly.missions;
+
+import io.github.rajveer.dragonfly.ode.RK4Solver;
+import io.github.rajveer.dragonfly.systems.Ephemeris;
+import io.github.rajveer.dragonfly.systems.GravitySystem;
+import io.github.rajveer.dragonfly.systems.SolarSystem;
+import io.github.rajveer.dragonfly.utils.Kepler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PorkchopTest {
+
+    private static final double AU = 1.495978707e8;
+    private static final double DAY = 86400;
+
+    /** The Sun and two light planets on circular orbits at 1 and 1.52 AU. */
+    private static Ephemeris ephemeris() {
+        List<Double> masses = List.of(1.989e30, 1e10, 1e10);
+        double mu = GravitySystem.G * masses.get(0);
+        double[] y0 = new double[18];
+        double[] radii = {AU, 1.52 * AU};
+        double[] phases = {0, Math.toRadians(45)};
+        for (int p = 0; p < 2; p++) {
+            int o = 6 * (p + 1);
+            double v = Math.sqrt(mu / radii[p]);
+            y0[o] = radii[p] * Math.cos(phases[p]);
+            y0[o + 1] = radii[p] * Math.sin(phases[p]);
+            y0[o + 3] = -v * Math.sin(phases[p]);
+            y0[o + 4] = v * Math.cos(phases[p]);
+        }
+        return Ephemeris.integrate(new SolarSystem(masses), y0, 0, DAY, 600, new RK4Solver());
+    }
+
+    @Test
+    void departureVelocitiesReachTheArrivalBody() {
+        Ephemeris ephemeris = ephemeris();
+        double[] departures = {0, 40 * DAY};
+        double[] flightTimes = {150 * DAY, 250 * DAY, 350 * DAY, 700 * DAY};
+        Porkchop grid = Porkchop.compute(ephemeris, 0, 1, 2, true, departures, flightTimes,
+                ForkJoinPool.commonPool());
+        assertEquals(2, grid.getNumDepartures());
+        assertEquals(4, grid.getNumFlightTimes());
+
+        double mu = ephemeris.getGravitationalParameter(0);
+        double[] bodies = new double[18];
+        double[] velocity = new double[3];
+        for (int row = 0; row < departures.length; row++) {
+            // Beyond the end of the ephemeris
+            assertTrue(Double.isNaN(grid.getDepartureDeltaV(row, 3)));
+
+            for (int column = 0; column < 3; column++) {
+                assertTrue(grid.getDepartureDeltaV(row, column) > 0);
+                assertTrue(grid.getArrivalDeltaV(row, column) > 0);
+
+                ephemeris.stateInto(grid.getDeparture(row), bodies);
+                grid.departureVelocityInto(row, column, velocity);
+                double[] state = {bodies[6] - bodies[0], bodies[7] - bodies[1], bodies[8] - bodies[2],
+                        velocity[0], velocity[1], velocity[2]};
+                Kepler.propagate(mu, state, 0, grid.getFlightTime(column));
+
+                ephemeris.stateInto(grid.getDeparture(row) + grid.getFlightTime(column), bodies);
+                for (int k = 0; k < 3; k++) {
+                    assertEquals(bodies[12 + k] - bodies[k], state[k], 1e-6 * AU);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.rajveer.dragonfly.ode;
+
+import io.github.rajveer.dragonfly.systems.ODESystem;
+import io.github.rajveer.dragonfly.utils.Kepler;
+import io.github.rajveer.dragonfly.utils.Vector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DormandPrinceSolverTest {
+
+    private static final double MU = 1.0;
+
+    /** Two-body problem about a fixed centre, state (x, y, z, vx, vy, vz). */
+    private static final ODESystem KEPLER = new ODESystem() {
+        @Override
+        public Vector computeDerivative(double t, Vector y) {
+            double[] dydt = new double[6];
+            computeDerivativeInto(t, y.toArray(), dydt);
+            return new Vector(dydt);
+        }
+
+        @Override
+        public void computeDerivativeInto(double t, double[] y, double[] dydt) {
+            double r2 = y[0] * y[0] + y[1] * y[1] + y[2] * y[2];
+            double k = -MU / (r2 * Math.sqrt(r2));
+            dydt[0] = y[3];
+            dydt[1] = y[4];
+            dydt[2] = y[5];
+            dydt[3] = k * y[0];
+            dydt[4] = k * y[1];
+            dydt[5] = k * y[2];
+        }
+    };
+
+    /** Eccentricity 0.6 orbit started at perihelion, slightly inclined. */
+    private static double[] initialState() {
+        double e = 0.6, rp = 1.0;
+        double vp = Math.sqrt(MU * (1 + e) / rp);
+        return new double[]{rp, 0, 0, 0, vp * Math.cos(0.1), vp * Math.sin(0.1)};
+    }
+
+    private static double positionError(double[] y, double[] exact) {
+        double dx = y[0] - exact[0], dy = y[1] - exact[1], dz = y[2] - exact[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /** Integrates two orbits in steps of a tenth of a period and returns the position error. */
+    private static double integrate(DormandPrinceSolver solver, double[] exact) {
+        double period = 2 * Math.PI * Math.sqrt(Math.pow(1.0 / (1 - 0.6), 3) / MU);
+        double[] y = initialState();
+        double t = 0;
+        for (int i = 0; i < 20; i++) {
+            solver.stepInto(KEPLER, t, y, period / 10, y);
+            t += period / 10;
+        }
+        System.arraycopy(initialState(), 0, exact, 0, 6);
+        Kepler.propagate(MU, exact, 0, t);
+        return positionError(y, exact);
+    }
+
+    @Test
+    void followsAnEccentricKeplerOrbit() {
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-12, 1e-12);
+        double error = integrate(solver, new double[6]);
+        assertTrue(error < 1e-8, "position error " + error);
+        assertTrue(solver.getAcceptedSteps() > 0);
+    }
+
+    @Test
+    void errorFallsAtFifthOrderInTheStepCount() {
+        // Global error ~ N^-5 for N steps; the controller only sets the step distribution
+        DormandPrinceSolver coarse = new DormandPrinceSolver(1e-7, 1e-7);
+        DormandPrinceSolver fine = new DormandPrinceSolver(1e-11, 1e-11);
+        double coarseError = integrate(coarse, new double[6]);
+        double fineError = integrate(fine, new double[6]);
+
+        double order = Math.log(coarseError / fineError)
+                / Math.log((double) fine.getAcceptedSteps() / coarse.getAcceptedSteps());
+        assertEquals(5.0, order, 0.8);
+    }
+
+    @Test
+    void stepEndingJustShortOfTheEndIsStretched() {
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-9, 1e-9);
+        double[] y = initialState();
+        solver.stepInto(KEPLER, 1e6, y, 0.5, y);
+
+        // The suggested step alone would stop a few ulps before the end of the interval
+        double t = 1e6 + 0.5;
+        double h = solver.getSuggestedStep();
+        double dt = h + 4 * Math.ulp(t + h);
+        assertDoesNotThrow(() -> solver.stepInto(KEPLER, t, y, dt, y));
+    }
+
+    @Test
+    void zeroStepDoesNotAdoptAnotherState() {
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-12, 1e-12);
+        double[] y = initialState();
+        solver.stepInto(KEPLER, 0, y, 1.0, y);
+
+        // A zero-length call with a different state must not pass off the old FSAL stage as its own
+        double[] other = initialState();
+        other[4] *= 0.9;
+        solver.stepInto(KEPLER, 1.0, other, 0, other);
+        solver.stepInto(KEPLER, 1.0, other, 2.0, other);
+
+        double[] exact = initialState();
+        exact[4] *= 0.9;
+        Kepler.propagate(MU, exact, 0, 2.0);
+        assertTrue(positionError(other, exact) < 1e-10, "position error " + positionError(other, exact));
+    }
+
+    @Test
+    void stepsBackwards() {
+        DormandPrinceSolver solver = new DormandPrinceSolver(1e-12, 1e-12);
+        double[] y = initialState();
+        solver.stepInto(KEPLER, 0, y, 3.0, y);
+        solver.stepInto(KEPLER, 3.0, y, -3.0, y);
+        assertTrue(positionError(y, initialState()) < 1e-9);
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.rajveer.dragonfly.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LambertTest {
+
+    /** Sun's gravitational parameter in km³/s². */
+    private static final double MU = 1.32712440018e11;
+    private static final double AU = 1.495978707e8;
+    private static final double DAY = 86400;
+
+    private static double[] at(double radius, double degrees, double z) {
+        double angle = Math.toRadians(degrees);
+        return new double[]{radius * Math.cos(angle), radius * Math.sin(angle), z};
+    }
+
+    /** Solves the transfer, propagates its departure state and checks that it arrives. */
+    private static double[] roundTrip(double[] r1, double[] r2, double tof, boolean prograde) {
+        double[] v1 = new double[3], v2 = new double[3];
+        assertTrue(Lambert.solve(MU, r1, r2, tof, prograde, v1, v2));
+
+        double[] state = {r1[0], r1[1], r1[2], v1[0], v1[1], v1[2]};
+        Kepler.propagate(MU, state, 0, tof);
+        double scale = Math.max(norm(r1), norm(r2));
+        for (int k = 0; k < 3; k++) {
+            assertEquals(r2[k], state[k], 1e-8 * scale, "position " + k);
+            assertEquals(v2[k], state[3 + k], 1e-8 * norm(v2), "velocity " + k);
+        }
+
+        // The angular momentum points along +z exactly for prograde transfers
+        double hz = r1[0] * v1[1] - r1[1] * v1[0];
+        assertEquals(prograde, hz > 0);
+        return v1;
+    }
+
+    private static double norm(double[] v) {
+        return Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+    }
+
+    @Test
+    void shortWayTransfer() {
+        roundTrip(at(AU, 10, 0), at(1.52 * AU, 120, 0.05 * AU), 200 * DAY, true);
+    }
+
+    @Test
+    void longWayTransfer() {
+        // Prograde from 10° to 250° sweeps 240°, more than half a revolution
+        roundTrip(at(AU, 10, 0), at(1.52 * AU, 250, -0.02 * AU), 300 * DAY, true);
+    }
+
+    @Test
+    void retrogradeTransfer() {
+        roundTrip(at(AU, 10, 0), at(1.52 * AU, 120, 0), 250 * DAY, false);
+    }
+
+    @Test
+    void hyperbolicTransfer() {
+        double[] r1 = at(AU, 0, 0);
+        double[] v1 = roundTrip(r1, at(5 * AU, 60, 0), 60 * DAY, true);
+
+        double energy = 0.5 * (v1[0] * v1[0] + v1[1] * v1[1] + v1[2] * v1[2]) - MU / norm(r1);
+        assertTrue(energy > 0, "specific energy " + energy);
+    }
+
+    @Test
+    void oppositePositionsHaveNoUniqueTransfer() {
+        double[] v1 = {1, 2, 3}, v2 = {4, 5, 6};
+        double[] r1 = {AU, 0, 0}, r2 = {-2 * AU, 0, 0};
+        assertFalse(Lambert.solve(MU, r1, r2, 200 * DAY, true, v1, v2));
+        assertFalse(Lambert.solve(MU, r1, at(2 * AU, 180, 0), 200 * DAY, true, v1, v2));
+        assertArrayEquals(new double[]{1, 2, 3}, v1);
+        assertArrayEquals(new double[]{4, 5, 6}, v2);
+    }
+
+    @Test
+    void rejectsNonPositiveFlightTimes() {
+        double[] v1 = new double[3], v2 = new double[3];
+        assertThrows(IllegalArgumentException.class,
+                () -> Lambert.solve(MU, at(AU, 0, 0), at(AU, 90, 0), 0, true, v1, v2));
+    }
+}
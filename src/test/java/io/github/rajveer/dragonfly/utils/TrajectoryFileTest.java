@@ -0,0 +1,106 @@
+package io.github.rajveer.dragonfly.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrajectoryFileTest {
+
+    private static final int BODIES = 3;
+    private static final int COMPONENTS = 6;
+    private static final int STEPS = 20_000;
+
+    @TempDir
+    Path dir;
+
+    private static double value(int step, int c) {
+        return Math.sin(0.001 * step + c) * 1e8 + c;
+    }
+
+    private static void write(Path file, boolean singlePrecision, int steps) throws IOException {
+        double[] state = new double[BODIES * COMPONENTS];
+        try (TrajectoryWriter writer = new TrajectoryWriter(file, BODIES, COMPONENTS, 86400, singlePrecision)) {
+            for (int step = 0; step < steps; step++) {
+                for (int c = 0; c < state.length; c++) {
+                    state[c] = value(step, c);
+                }
+                writer.append(step * 86400.0, state);
+            }
+            assertEquals(steps, writer.getRecords());
+        }
+    }
+
+    @Test
+    void roundTripsDoublePrecision() throws IOException {
+        roundTrip(false, 0);
+    }
+
+    @Test
+    void roundTripsSinglePrecision() throws IOException {
+        roundTrip(true, 1e-6);
+    }
+
+    private void roundTrip(boolean singlePrecision, double relativeTolerance) throws IOException {
+        Path file = dir.resolve("run.traj");
+        write(file, singlePrecision, STEPS);
+
+        try (TrajectoryFile stored = TrajectoryFile.open(file)) {
+            assertEquals(STEPS, stored.size());
+            assertEquals(BODIES, stored.getNumBodies());
+            assertEquals(COMPONENTS, stored.getComponentsPerBody());
+            assertEquals(86400, stored.getStepSize());
+            assertEquals(singlePrecision, stored.isSinglePrecision());
+
+            double[] state = new double[BODIES * COMPONENTS];
+            for (int step = 0; step < STEPS; step += 997) {
+                assertEquals(step * 86400.0, stored.getTime(step));
+                stored.stateInto(step, state);
+                for (int c = 0; c < state.length; c++) {
+                    double expected = value(step, c);
+                    assertEquals(expected, state[c], relativeTolerance * Math.abs(expected));
+                    assertEquals(state[c], stored.get(step, c / COMPONENTS, c % COMPONENTS));
+                }
+            }
+            double[] column = stored.column(2, 4);
+            assertEquals(STEPS, column.length);
+            assertEquals(value(STEPS - 1, 16), column[STEPS - 1], relativeTolerance * 1e8);
+        }
+    }
+
+    @Test
+    void readsTheCompleteRecordsOfAnUnfinishedFile() throws IOException {
+        Path file = dir.resolve("run.traj");
+        write(file, false, 100);
+
+        // As if the writer had died: no record count and half a record at the end
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, -1L), TrajectoryFile.OFFSET_RECORDS);
+            channel.truncate(channel.size() - TrajectoryFile.recordSize(BODIES * COMPONENTS, false) / 2);
+        }
+        try (TrajectoryFile stored = TrajectoryFile.open(file)) {
+            assertEquals(99, stored.size());
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[128]);
+        assertThrows(IOException.class, () -> TrajectoryFile.open(file));
+    }
+
+    @Test
+    void closingTheWriterTwiceIsHarmless() throws IOException {
+        TrajectoryWriter writer = new TrajectoryWriter(dir.resolve("run.traj"), BODIES, COMPONENTS, 1, false);
+        writer.close();
+        assertDoesNotThrow(writer::close);
+    }
+}